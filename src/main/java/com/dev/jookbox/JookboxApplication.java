@@ -1,12 +1,21 @@
 package com.dev.jookbox;
 
 import com.dev.jookbox.config.JwtProperties;
+import com.dev.jookbox.config.PlaybackProperties;
+import com.dev.jookbox.config.QueueProperties;
+import com.dev.jookbox.config.RoomCommandProperties;
+import com.dev.jookbox.config.RoomEventProperties;
+import com.dev.jookbox.config.RoomProperties;
+import com.dev.jookbox.config.WebSocketProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties(JwtProperties.class)
+@EnableConfigurationProperties({JwtProperties.class, RoomCommandProperties.class, PlaybackProperties.class,
+		RoomEventProperties.class, WebSocketProperties.class, RoomProperties.class, QueueProperties.class})
+@EnableScheduling
 public class JookboxApplication {
 
 	public static void main(String[] args) {
@@ -3,10 +3,14 @@ package com.dev.jookbox.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.bind.DefaultValue;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "security.jwt")
 public record JwtProperties(
         String secret,
         String issuer,
-        @DefaultValue("720") long expiryMinutes
+        @DefaultValue("720") long expiryMinutes,
+        @DefaultValue("10000") long cacheSize,
+        @DefaultValue("1m") Duration epochRecheck
 ) {
 }
@@ -0,0 +1,18 @@
+package com.dev.jookbox.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Random id of this application instance, used to recognise our own messages on shared Redis channels.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id = UUID.randomUUID().toString();
+
+    public String id() {
+        return id;
+    }
+}
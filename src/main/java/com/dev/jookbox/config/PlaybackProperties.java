@@ -0,0 +1,16 @@
+package com.dev.jookbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "jookbox.playback")
+public record PlaybackProperties(
+        @DefaultValue("10000") long nearCacheSize,
+        @DefaultValue("1m") Duration nearCacheTtl,
+        @DefaultValue("100ms") Duration advanceTick,
+        @DefaultValue("512") int advanceWheelSize,
+        @DefaultValue("200ms") Duration broadcastWindow
+) {
+}
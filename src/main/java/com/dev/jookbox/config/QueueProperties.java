@@ -0,0 +1,15 @@
+package com.dev.jookbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "jookbox.queue")
+public record QueueProperties(
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue("5") int maxFlushAttempts,
+        @DefaultValue("30s") Duration maxFlushBackoff,
+        @DefaultValue("1m") Duration maxBacklogAge
+) {
+}
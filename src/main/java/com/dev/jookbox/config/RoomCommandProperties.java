@@ -0,0 +1,15 @@
+package com.dev.jookbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "jookbox.commands")
+public record RoomCommandProperties(
+        @DefaultValue("8") int shards,
+        @DefaultValue("1024") int mailboxCapacity,
+        @DefaultValue("5s") Duration timeout,
+        @DefaultValue("30s") Duration ownerLease
+) {
+}
@@ -0,0 +1,13 @@
+package com.dev.jookbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "jookbox.events")
+public record RoomEventProperties(
+        @DefaultValue("1000") long maxLength,
+        @DefaultValue("1d") Duration retention
+) {
+}
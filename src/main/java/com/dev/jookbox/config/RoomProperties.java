@@ -0,0 +1,18 @@
+package com.dev.jookbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "jookbox.rooms")
+public record RoomProperties(
+        @DefaultValue("10000") long cacheSize,
+        @DefaultValue("10m") Duration cacheTtl,
+        @DefaultValue("ABCDEFGHJKLMNPQRSTUVWXYZ23456789") String codeAlphabet,
+        @DefaultValue("6") int codeLength,
+        @DefaultValue("2000") int codePoolSize,
+        @DefaultValue("500") int codePoolBatch,
+        @DefaultValue("5m") Duration codeLease
+) {
+}
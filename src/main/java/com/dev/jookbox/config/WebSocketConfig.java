@@ -1,15 +1,31 @@
 package com.dev.jookbox.config;
 
+import com.dev.jookbox.web.ws.SlowConsumerGuard;
+import com.dev.jookbox.web.ws.StompAuthenticationInterceptor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketProperties properties;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final StompAuthenticationInterceptor authenticationInterceptor;
+
+    public WebSocketConfig(WebSocketProperties properties,
+                           SlowConsumerGuard slowConsumerGuard,
+                           StompAuthenticationInterceptor authenticationInterceptor) {
+        this.properties = properties;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.authenticationInterceptor = authenticationInterceptor;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*");
@@ -17,7 +33,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        registry.enableSimpleBroker("/topic", "/queue");
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) properties.sendTimeLimit().toMillis())
+                .setSendBufferSizeLimit((int) properties.sendBufferSizeLimit().toBytes())
+                .setMessageSizeLimit((int) properties.messageSizeLimit().toBytes())
+                .addDecoratorFactory(slowConsumerGuard);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(authenticationInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(properties.outboundCorePoolSize())
+                .maxPoolSize(properties.outboundMaxPoolSize())
+                .queueCapacity(properties.outboundQueueCapacity());
+        registration.interceptors(slowConsumerGuard);
     }
 }
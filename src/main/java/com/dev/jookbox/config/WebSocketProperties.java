@@ -0,0 +1,20 @@
+package com.dev.jookbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "jookbox.websocket")
+public record WebSocketProperties(
+        @DefaultValue("10s") Duration sendTimeLimit,
+        @DefaultValue("512KB") DataSize sendBufferSizeLimit,
+        @DefaultValue("64KB") DataSize messageSizeLimit,
+        @DefaultValue("4") int outboundCorePoolSize,
+        @DefaultValue("16") int outboundMaxPoolSize,
+        @DefaultValue("10000") int outboundQueueCapacity,
+        @DefaultValue("8") int slowSessionFrames,
+        @DefaultValue("10000") long snapshotCacheSize
+) {
+}
@@ -1,14 +1,48 @@
 package com.dev.jookbox.domain;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Member capabilities, stored and carried around as a bitmask. The set and name forms of all
+ * {@value #MASK_COUNT} masks are built once, so converting a mask never allocates.
+ */
 public enum Capability {
     PLAYBACK_CONTROL(1),
     REORDER_QUEUE(2),
     REMOVE_ITEMS(4),
     SKIP_OVERRIDE(8);
 
+    public static final int ALL = 15;
+
+    private static final int MASK_COUNT = ALL + 1;
+    private static final List<Set<Capability>> SETS;
+    private static final List<Set<String>> NAMES;
+
+    static {
+        Capability[] values = values();
+        Set<Capability>[] sets = newSetArray();
+        Set<String>[] names = newSetArray();
+        for (int mask = 0; mask < MASK_COUNT; mask++) {
+            EnumSet<Capability> set = EnumSet.noneOf(Capability.class);
+            Set<String> setNames = new LinkedHashSet<>();
+            for (Capability capability : values) {
+                if ((mask & capability.mask) != 0) {
+                    set.add(capability);
+                    setNames.add(capability.name());
+                }
+            }
+            sets[mask] = Collections.unmodifiableSet(set);
+            names[mask] = Collections.unmodifiableSet(setNames);
+        }
+        SETS = List.of(sets);
+        NAMES = List.of(names);
+    }
+
     private final int mask;
 
     Capability(int mask) {
@@ -20,16 +54,41 @@ public enum Capability {
     }
 
     public static int toMask(Set<Capability> capabilities) {
-        return capabilities.stream().mapToInt(Capability::getMask).reduce(0, (a, b) -> a | b);
+        int mask = 0;
+        for (Capability capability : capabilities) {
+            mask |= capability.mask;
+        }
+        return mask;
+    }
+
+    /**
+     * Mask for capability names; unknown names are rejected with {@link IllegalArgumentException}.
+     */
+    public static int parseMask(Collection<?> names) {
+        int mask = 0;
+        for (Object name : names) {
+            mask |= valueOf(name.toString().toUpperCase()).mask;
+        }
+        return mask;
     }
 
     public static Set<Capability> fromMask(int mask) {
-        return Set.of(values()).stream()
-                .filter(cap -> (mask & cap.mask) == cap.mask)
-                .collect(Collectors.toSet());
+        return SETS.get(mask & ALL);
+    }
+
+    /**
+     * String form of a mask, for API responses.
+     */
+    public static Set<String> names(int mask) {
+        return NAMES.get(mask & ALL);
     }
 
     public static boolean hasCapability(int mask, Capability cap) {
         return (mask & cap.mask) == cap.mask;
     }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Set<T>[] newSetArray() {
+        return (Set<T>[]) new Set<?>[MASK_COUNT];
+    }
 }
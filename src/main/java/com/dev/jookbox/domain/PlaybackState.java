@@ -3,15 +3,33 @@ package com.dev.jookbox.domain;
 import lombok.Builder;
 import lombok.Value;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class PlaybackState {
     UUID roomId;
     UUID nowPlayingQueueItemId;
     int positionMs;
     boolean playing;
     Instant lastUpdateTs;
+    /**
+     * Length of the current track, or 0 when unknown (states written before it was stored).
+     */
+    int durationMs;
+    long version;
+
+    /**
+     * Position the track has reached at {@code at} on the server clock, capped at the track's end when its
+     * duration is known.
+     */
+    public long effectivePositionMs(Instant at) {
+        long position = positionMs;
+        if (playing) {
+            position += Math.max(0, Duration.between(lastUpdateTs, at).toMillis());
+        }
+        return durationMs > 0 ? Math.min(position, durationMs) : position;
+    }
 }
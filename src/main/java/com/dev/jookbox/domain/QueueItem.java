@@ -51,4 +51,7 @@ public class QueueItem {
 
     @Column(name = "enqueued_at", nullable = false)
     private OffsetDateTime enqueuedAt;
+
+    @Version
+    private Long version;
 }
@@ -0,0 +1,8 @@
+package com.dev.jookbox.domain;
+
+public enum QueueOperationType {
+    INSERT,
+    MOVE,
+    REMOVE,
+    STATUS
+}
@@ -35,4 +35,10 @@ public class Room {
 
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
+
+    @Column(name = "queue_revision", nullable = false)
+    private long queueRevision;
+
+    @Version
+    private Long version;
 }
@@ -0,0 +1,19 @@
+package com.dev.jookbox.domain;
+
+import java.util.UUID;
+
+/**
+ * The parts of a {@link Room} most requests need: enough to address the room's in-memory state and check that
+ * it is open, without loading the entity.
+ */
+public record RoomRef(
+        UUID id,
+        String code,
+        RoomStatus status,
+        UUID hostId
+) {
+
+    public boolean isActive() {
+        return status == RoomStatus.ACTIVE;
+    }
+}
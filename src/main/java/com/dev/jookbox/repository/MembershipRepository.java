@@ -3,6 +3,7 @@ package com.dev.jookbox.repository;
 import com.dev.jookbox.domain.Membership;
 import com.dev.jookbox.domain.Room;
 import com.dev.jookbox.domain.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
@@ -12,4 +13,8 @@ public interface MembershipRepository extends JpaRepository<Membership, UUID> {
     Optional<Membership> findByRoomAndUser(Room room, User user);
     Optional<Membership> findByRoomCodeAndUserId(String code, UUID userId);
     long countByRoom(Room room);
+    long countByRoomId(UUID roomId);
+
+    @EntityGraph(attributePaths = "user")
+    Optional<Membership> findWithUserById(UUID id);
 }
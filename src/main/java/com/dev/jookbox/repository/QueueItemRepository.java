@@ -4,7 +4,6 @@ import com.dev.jookbox.domain.QueueItem;
 import com.dev.jookbox.domain.Room;
 import com.dev.jookbox.domain.QueueItemStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -14,13 +13,18 @@ import java.util.UUID;
 
 public interface QueueItemRepository extends JpaRepository<QueueItem, UUID> {
 
-    List<QueueItem> findByRoomOrderByPosition(Room room);
-
     Optional<QueueItem> findFirstByRoomOrderByPosition(Room room);
 
-    @Modifying
-    @Query("update QueueItem qi set qi.position = qi.position + :delta where qi.room = :room and qi.position >= :start")
-    int shiftPositions(@Param("room") Room room, @Param("start") int start, @Param("delta") int delta);
+    // Status literals (not parameters) so Postgres can match idx_queue_room_active_position's predicate.
+    @Query("""
+            select new com.dev.jookbox.repository.QueueItemRow(
+                qi.id, qi.room.id, qi.videoId, qi.title, qi.durationSeconds, qi.thumbUrl,
+                u.id, u.displayName, qi.status, qi.position, qi.enqueuedAt)
+            from QueueItem qi join qi.addedBy u
+            where qi.room.id = :roomId
+              and qi.status in (com.dev.jookbox.domain.QueueItemStatus.QUEUED, com.dev.jookbox.domain.QueueItemStatus.PLAYING)
+            order by qi.position""")
+    List<QueueItemRow> findActiveRowsByRoomId(@Param("roomId") UUID roomId);
 
     long countByRoomAndStatus(Room room, QueueItemStatus status);
 }
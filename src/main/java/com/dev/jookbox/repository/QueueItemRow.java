@@ -0,0 +1,21 @@
+package com.dev.jookbox.repository;
+
+import com.dev.jookbox.domain.QueueItemStatus;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record QueueItemRow(
+        UUID id,
+        UUID roomId,
+        String videoId,
+        String title,
+        int durationSeconds,
+        String thumbUrl,
+        UUID addedById,
+        String addedByName,
+        QueueItemStatus status,
+        int position,
+        OffsetDateTime enqueuedAt
+) {
+}
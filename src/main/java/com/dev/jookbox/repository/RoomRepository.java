@@ -1,12 +1,37 @@
 package com.dev.jookbox.repository;
 
 import com.dev.jookbox.domain.Room;
+import com.dev.jookbox.domain.RoomRef;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RoomRepository extends JpaRepository<Room, UUID> {
     Optional<Room> findByCode(String code);
     boolean existsByCode(String code);
+
+    @Query("select new com.dev.jookbox.domain.RoomRef(r.id, r.code, r.status, r.host.id) from Room r where r.code = :code")
+    Optional<RoomRef> findRefByCode(@Param("code") String code);
+
+    @Query("select r.queueRevision from Room r where r.id = :id")
+    Optional<Long> findQueueRevisionById(@Param("id") UUID id);
+
+    /**
+     * Moves the queue revision from {@code base} to {@code revision}; returns 0 when the room is gone or its
+     * revision is no longer {@code base}.
+     */
+    @Modifying
+    @Query("""
+            update Room r set r.queueRevision = :revision, r.version = r.version + 1
+            where r.id = :id and r.queueRevision = :base""")
+    int advanceQueueRevision(@Param("id") UUID id, @Param("base") long base, @Param("revision") long revision);
+
+    @Query("select r.code from Room r where r.code in :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
 }
@@ -1,16 +1,25 @@
 package com.dev.jookbox.security;
 
+import com.dev.jookbox.domain.Capability;
 import com.dev.jookbox.domain.Role;
 
-import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Member behind a verified token. {@code capabilities} is the {@link Capability} bitmask; {@code epoch} is the
+ * membership epoch the token was issued in (see {@link MembershipEpochs}).
+ */
 public record AuthenticatedMember(
         UUID membershipId,
         UUID userId,
         UUID roomId,
         String roomCode,
         Role role,
-        Set<String> capabilities
+        int capabilities,
+        long epoch
 ) {
+
+    public boolean hasCapability(Capability capability) {
+        return Capability.hasCapability(capabilities, capability);
+    }
 }
@@ -1,5 +1,7 @@
 package com.dev.jookbox.security;
 
+import com.dev.jookbox.service.room.RoomDirectory;
+import com.dev.jookbox.web.RoomBusyException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,9 +21,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtService jwtService;
+    private final MembershipEpochs epochs;
+    private final RoomDirectory rooms;
 
-    public JwtAuthenticationFilter(JwtService jwtService) {
+    public JwtAuthenticationFilter(JwtService jwtService, MembershipEpochs epochs, RoomDirectory rooms) {
         this.jwtService = jwtService;
+        this.epochs = epochs;
+        this.rooms = rooms;
     }
 
     @Override
@@ -32,12 +38,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = header.substring(7);
             try {
                 AuthenticatedMember member = jwtService.parse(token);
-                SecurityContextHolder.getContext().setAuthentication(new MemberAuthentication(member, token));
-                log.debug("Authenticated member {} for room {}", member.userId(), member.roomCode());
+                if (!epochs.isCurrent(member)) {
+                    log.debug("Rejected superseded token of membership {}", member.membershipId());
+                } else if (!roomExists(member)) {
+                    log.debug("Rejected token for unknown room {}", member.roomCode());
+                } else {
+                    SecurityContextHolder.getContext().setAuthentication(new MemberAuthentication(member, token));
+                    log.debug("Authenticated member {} for room {}", member.userId(), member.roomCode());
+                }
+            } catch (RoomBusyException e) {
+                // the epoch could not be checked; refuse rather than let a possibly superseded token through
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+                return;
             } catch (Exception e) {
                 log.debug("Failed to authenticate JWT: {}", e.getMessage());
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    private boolean roomExists(AuthenticatedMember member) {
+        return rooms.find(member.roomCode())
+                .map(room -> room.id().equals(member.roomId()))
+                .orElse(false);
+    }
 }
@@ -4,51 +4,84 @@ import com.dev.jookbox.config.JwtProperties;
 import com.dev.jookbox.domain.Capability;
 import com.dev.jookbox.domain.Membership;
 import com.dev.jookbox.domain.Role;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Date;
-import java.util.Set;
+import java.util.HexFormat;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies membership tokens. Verified principals are cached by the SHA-256 digest of their token
+ * until the token expires, so a client repeating the same bearer token pays for the HMAC check and claim
+ * parsing once.
+ */
 @Component
 public class JwtService {
 
+    private static final String CAPABILITY_MASK_CLAIM = "caps";
+    private static final String LEGACY_CAPABILITIES_CLAIM = "capabilities";
+    private static final String EPOCH_CLAIM = "epoch";
+
     private final JwtProperties properties;
+    private final MeterRegistry meterRegistry;
     private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<String, VerifiedToken> verified;
 
-    public JwtService(JwtProperties properties) {
+    public JwtService(JwtProperties properties, MeterRegistry meterRegistry) {
         this.properties = properties;
+        this.meterRegistry = meterRegistry;
     }
 
     @PostConstruct
     void init() {
         this.signingKey = Keys.hmacShaKeyFor(properties.secret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .requireIssuer(properties.issuer())
+                .setSigningKey(signingKey)
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.cacheSize())
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwtPrincipals");
     }
 
-    public String generateToken(Membership membership) {
+    /**
+     * Token for the membership as of {@code epoch}; new memberships start at epoch 0. The room code is passed in
+     * so that a lazily loaded {@code membership.getRoom()} is never initialized just for the claim.
+     */
+    public String generateToken(Membership membership, String roomCode, long epoch) {
         Instant now = Instant.now();
-        Set<String> caps = Capability.fromMask(membership.getCapabilities()).stream()
-                .map(Enum::name)
-                .collect(Collectors.toSet());
-
         return Jwts.builder()
                 .setIssuer(properties.issuer())
                 .setSubject(membership.getUser().getId().toString())
                 .claim("membershipId", membership.getId().toString())
                 .claim("roomId", membership.getRoom().getId().toString())
-                .claim("roomCode", membership.getRoom().getCode())
+                .claim("roomCode", roomCode)
                 .claim("role", membership.getRole().name())
-                .claim("capabilities", caps)
+                .claim(CAPABILITY_MASK_CLAIM, membership.getCapabilities() & Capability.ALL)
+                .claim(EPOCH_CLAIM, epoch)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plus(properties.expiryMinutes(), ChronoUnit.MINUTES)))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
@@ -56,25 +89,74 @@ public class JwtService {
     }
 
     public AuthenticatedMember parse(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .requireIssuer(properties.issuer())
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String key = digest(token);
+        VerifiedToken cached = verified.getIfPresent(key);
+        if (cached != null) {
+            return cached.member();
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        AuthenticatedMember member = toMember(claims);
+        if (claims.getExpiration() != null) {
+            verified.put(key, new VerifiedToken(member, claims.getExpiration().getTime()));
+        }
+        return member;
+    }
 
+    private static AuthenticatedMember toMember(Claims claims) {
         UUID membershipId = UUID.fromString(claims.get("membershipId", String.class));
         UUID roomId = UUID.fromString(claims.get("roomId", String.class));
         UUID userId = UUID.fromString(claims.getSubject());
         String roomCode = claims.get("roomCode", String.class);
         Role role = Role.valueOf(claims.get("role", String.class));
-        Object rawCapabilities = claims.get("capabilities");
-        Set<String> caps;
-        if (rawCapabilities instanceof java.util.Collection<?> collection) {
-            caps = collection.stream().map(Object::toString).collect(Collectors.toSet());
-        } else {
-            caps = Set.of();
+        long epoch = claims.get(EPOCH_CLAIM) instanceof Number number ? number.longValue() : 0;
+        return new AuthenticatedMember(membershipId, userId, roomId, roomCode, role, capabilityMask(claims), epoch);
+    }
+
+    /**
+     * Tokens issued before the mask claim carry capability names instead; those stay valid until they expire.
+     */
+    private static int capabilityMask(Claims claims) {
+        Object mask = claims.get(CAPABILITY_MASK_CLAIM);
+        if (mask instanceof Number number) {
+            return number.intValue() & Capability.ALL;
+        }
+        if (claims.get(LEGACY_CAPABILITIES_CLAIM) instanceof Collection<?> names) {
+            return Capability.parseMask(names);
+        }
+        return 0;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record VerifiedToken(AuthenticatedMember member, long expiresAtMillis) {
+    }
+
+    /**
+     * Keeps an entry exactly as long as its token stays valid; reads and overwrites do not extend it.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        return new AuthenticatedMember(membershipId, userId, roomId, roomCode, role, caps);
     }
 }
@@ -1,20 +1,35 @@
 package com.dev.jookbox.security;
 
+import com.dev.jookbox.domain.Capability;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MemberAuthentication extends AbstractAuthenticationToken {
 
+    /**
+     * {@code CAP_*} authorities for every capability mask, built once.
+     */
+    private static final List<List<GrantedAuthority>> AUTHORITIES;
+
+    static {
+        List<List<GrantedAuthority>> byMask = new ArrayList<>(Capability.ALL + 1);
+        for (int mask = 0; mask <= Capability.ALL; mask++) {
+            byMask.add(Capability.names(mask).stream()
+                    .<GrantedAuthority>map(cap -> new SimpleGrantedAuthority("CAP_" + cap))
+                    .toList());
+        }
+        AUTHORITIES = List.copyOf(byMask);
+    }
+
     private final AuthenticatedMember principal;
     private final String credentials;
 
     public MemberAuthentication(AuthenticatedMember principal, String token) {
-        super(principal.capabilities().stream()
-                .map(cap -> new SimpleGrantedAuthority("CAP_" + cap))
-                .collect(Collectors.toSet()));
+        super(AUTHORITIES.get(principal.capabilities() & Capability.ALL));
         this.principal = principal;
         this.credentials = token;
         setAuthenticated(true);
@@ -29,4 +44,12 @@ public class MemberAuthentication extends AbstractAuthenticationToken {
     public String getCredentials() {
         return credentials;
     }
+
+    /**
+     * Membership id; also the user name STOMP user destinations resolve against.
+     */
+    @Override
+    public String getName() {
+        return principal.membershipId().toString();
+    }
 }
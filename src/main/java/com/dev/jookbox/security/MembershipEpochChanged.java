@@ -0,0 +1,10 @@
+package com.dev.jookbox.security;
+
+import java.util.UUID;
+
+/**
+ * Raised on every node when a membership moves to a new epoch; {@code token} is the replacement for the
+ * member's now superseded token.
+ */
+public record MembershipEpochChanged(UUID membershipId, long epoch, String token) {
+}
@@ -0,0 +1,143 @@
+package com.dev.jookbox.security;
+
+import com.dev.jookbox.config.JwtProperties;
+import com.dev.jookbox.web.RoomBusyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-membership token epochs. Every token carries the epoch of its membership at issue time; changing a
+ * membership's capabilities advances the epoch, and tokens from an older epoch stop authenticating.
+ * <p>
+ * Redis ({@code membership:{id}:epoch}) holds the epochs. The keys never expire, so an epoch only ever grows and a
+ * new token never carries a lower epoch than one a node has cached. Each node keeps the epochs it has seen in
+ * memory, so the per-request check does not leave the process. Advances are announced on {@value #CHANNEL}, together with the
+ * refreshed token, and every node applies them to its copy and raises a {@link MembershipEpochChanged} event.
+ * A copy older than {@code security.jwt.epoch-recheck} is re-read from Redis in case an announcement was missed;
+ * if Redis cannot be reached the last known epoch is kept, and a membership with no known epoch is refused.
+ */
+@Component
+public class MembershipEpochs {
+
+    private static final Logger log = LoggerFactory.getLogger(MembershipEpochs.class);
+
+    static final String CHANNEL = "membership-epochs";
+    private static final long LOCAL_SIZE = 100_000;
+
+    private record Known(long epoch, long checkedAtNanos) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher events;
+    private final long recheckNanos;
+    private final Cache<UUID, Known> epochs = Caffeine.newBuilder()
+            .maximumSize(LOCAL_SIZE)
+            .build();
+    private final RedisScript<Long> advanceScript =
+            RedisScript.of(new ClassPathResource("redis/epoch-advance.lua"), Long.class);
+    private final Counter superseded;
+
+    public MembershipEpochs(StringRedisTemplate redisTemplate,
+                            RedisMessageListenerContainer listenerContainer,
+                            ApplicationEventPublisher events,
+                            JwtProperties jwtProperties,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.events = events;
+        this.recheckNanos = jwtProperties.epochRecheck().toNanos();
+        this.superseded = Counter.builder("jookbox.security.tokens.superseded")
+                .description("Requests rejected because their token predates a capability change")
+                .register(meterRegistry);
+        listenerContainer.addMessageListener(this::onAdvance, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Whether the member's token is from the membership's current epoch. Throws {@link RoomBusyException} when
+     * the epoch is not known on this node and Redis cannot be reached, so an outage never lets a token through.
+     */
+    public boolean isCurrent(AuthenticatedMember member) {
+        long current = current(member.membershipId());
+        if (member.epoch() >= current) {
+            return true;
+        }
+        superseded.increment();
+        return false;
+    }
+
+    /**
+     * Advances the membership's epoch; call {@link #announce} with a token for the returned epoch afterwards.
+     */
+    public long advance(UUID membershipId) {
+        Long epoch = redisTemplate.execute(advanceScript, List.of(key(membershipId)));
+        if (epoch == null) {
+            throw new IllegalStateException("Epoch advance returned no value");
+        }
+        remember(membershipId, epoch);
+        return epoch;
+    }
+
+    public void announce(UUID membershipId, long epoch, String token) {
+        redisTemplate.convertAndSend(CHANNEL, membershipId + " " + epoch + " " + token);
+    }
+
+    private long current(UUID membershipId) {
+        Known known = epochs.getIfPresent(membershipId);
+        if (known != null && System.nanoTime() - known.checkedAtNanos() < recheckNanos) {
+            return known.epoch();
+        }
+        try {
+            String stored = redisTemplate.opsForValue().get(key(membershipId));
+            long epoch = stored == null ? 0 : Long.parseLong(stored);
+            // Redis is authoritative, so a fresh read replaces whatever this node had
+            epochs.put(membershipId, new Known(epoch, System.nanoTime()));
+            return epoch;
+        } catch (DataAccessException ex) {
+            if (known == null) {
+                log.warn("Could not read epoch of membership {}: {}", membershipId, ex.getMessage());
+                throw new RoomBusyException("Membership check unavailable, try again");
+            }
+            log.debug("Could not re-read epoch of membership {}, keeping {}: {}",
+                    membershipId, known.epoch(), ex.getMessage());
+            return known.epoch();
+        }
+    }
+
+    private long remember(UUID membershipId, long epoch) {
+        return epochs.asMap().merge(membershipId, new Known(epoch, System.nanoTime()),
+                (previous, next) -> new Known(Math.max(previous.epoch(), next.epoch()), next.checkedAtNanos()))
+                .epoch();
+    }
+
+    private void onAdvance(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ");
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed membership epoch announcement");
+            return;
+        }
+        UUID membershipId = UUID.fromString(parts[0]);
+        long epoch = Long.parseLong(parts[1]);
+        remember(membershipId, epoch);
+        events.publishEvent(new MembershipEpochChanged(membershipId, epoch, parts[2]));
+    }
+
+    private static String key(UUID membershipId) {
+        return "membership:" + membershipId + ":epoch";
+    }
+}
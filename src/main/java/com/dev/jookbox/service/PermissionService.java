@@ -1,46 +1,83 @@
 package com.dev.jookbox.service;
 
 import com.dev.jookbox.domain.Capability;
+import com.dev.jookbox.domain.Membership;
 import com.dev.jookbox.domain.Role;
+import com.dev.jookbox.domain.RoomRef;
 import com.dev.jookbox.repository.MembershipRepository;
-import com.dev.jookbox.repository.RoomRepository;
 import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.security.JwtService;
+import com.dev.jookbox.security.MembershipEpochs;
+import com.dev.jookbox.service.room.RoomDirectory;
+import com.dev.jookbox.web.BadRequestException;
 import com.dev.jookbox.web.ForbiddenOperationException;
 import com.dev.jookbox.web.ResourceNotFoundException;
 import com.dev.jookbox.web.dto.PermissionUpdateRequest;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class PermissionService {
 
     private final MembershipRepository membershipRepository;
-    private final RoomRepository roomRepository;
+    private final RoomDirectory rooms;
+    private final MembershipEpochs epochs;
+    private final JwtService jwtService;
 
-    public PermissionService(MembershipRepository membershipRepository, RoomRepository roomRepository) {
+    public PermissionService(MembershipRepository membershipRepository,
+                             RoomDirectory rooms,
+                             MembershipEpochs epochs,
+                             JwtService jwtService) {
         this.membershipRepository = membershipRepository;
-        this.roomRepository = roomRepository;
+        this.rooms = rooms;
+        this.epochs = epochs;
+        this.jwtService = jwtService;
     }
 
     @Transactional
     public Set<String> updateCapabilities(String roomCode, UUID membershipId, PermissionUpdateRequest request, AuthenticatedMember actor) {
-        var room = roomRepository.findByCode(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
-        if (actor.role() != Role.HOST || !actor.roomId().equals(room.getId())) {
+        RoomRef room = rooms.require(roomCode);
+        if (actor.role() != Role.HOST || !actor.roomId().equals(room.id())) {
             throw new ForbiddenOperationException("Only the host can update permissions");
         }
         var membership = membershipRepository.findById(membershipId)
+                .filter(m -> m.getRoom().getId().equals(room.id()))
                 .orElseThrow(() -> new ResourceNotFoundException("Membership not found"));
-        Set<Capability> caps = request.capabilities().stream()
-                .map(String::toUpperCase)
-                .map(Capability::valueOf)
-                .collect(Collectors.toSet());
-        membership.setCapabilities(Capability.toMask(caps));
+        int mask;
+        try {
+            mask = Capability.parseMask(request.capabilities());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown capability");
+        }
+        membership.setCapabilities(mask);
         membershipRepository.save(membership);
-        return caps.stream().map(Enum::name).collect(Collectors.toSet());
+        supersedeTokens(membership, roomCode);
+        return Capability.names(mask);
+    }
+
+    /**
+     * Moves the membership to a new epoch so its outstanding tokens stop working, and hands the member a token
+     * with the new capabilities once the change commits. The epoch advances inside the transaction: if Redis
+     * cannot be reached the exception rolls the capability change back, so old tokens never keep capabilities the
+     * host took away. A rollback after the advance only costs the member a re-join.
+     */
+    private void supersedeTokens(Membership membership, String roomCode) {
+        long epoch = epochs.advance(membership.getId());
+        afterCommit(() -> epochs.announce(membership.getId(), epoch,
+                jwtService.generateToken(membership, roomCode, epoch)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -1,152 +1,291 @@
 package com.dev.jookbox.service;
 
+import com.dev.jookbox.domain.Capability;
 import com.dev.jookbox.domain.PlaybackState;
-import com.dev.jookbox.domain.QueueItem;
-import com.dev.jookbox.repository.QueueItemRepository;
-import com.dev.jookbox.repository.RoomRepository;
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.domain.RoomRef;
 import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.service.command.RoomClaimed;
+import com.dev.jookbox.service.command.RoomCommand;
+import com.dev.jookbox.service.command.RoomCommandExecutor;
+import com.dev.jookbox.service.command.RoomRouter;
+import com.dev.jookbox.service.playback.AutoAdvanceScheduler;
+import com.dev.jookbox.service.playback.PlaybackBroadcaster;
+import com.dev.jookbox.service.playback.PlaybackStateStore;
+import com.dev.jookbox.service.queue.QueueEntry;
+import com.dev.jookbox.service.queue.RoomQueue;
+import com.dev.jookbox.service.queue.RoomQueueStore;
+import com.dev.jookbox.service.room.RoomDirectory;
+import com.dev.jookbox.web.ConflictException;
 import com.dev.jookbox.web.ForbiddenOperationException;
 import com.dev.jookbox.web.ResourceNotFoundException;
 import com.dev.jookbox.web.dto.PlaybackStateResponse;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.transaction.Transactional;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class PlaybackService {
 
-    private final RoomRepository roomRepository;
-    private final QueueItemRepository queueItemRepository;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
-    private final SimpMessagingTemplate messagingTemplate;
-
-    public PlaybackService(RoomRepository roomRepository,
-                           QueueItemRepository queueItemRepository,
-                           StringRedisTemplate redisTemplate,
-                           ObjectMapper objectMapper,
-                           SimpMessagingTemplate messagingTemplate) {
-        this.roomRepository = roomRepository;
-        this.queueItemRepository = queueItemRepository;
-        this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
-        this.messagingTemplate = messagingTemplate;
+    private static final Logger log = LoggerFactory.getLogger(PlaybackService.class);
+
+    private final RoomDirectory rooms;
+    private final RoomQueueStore queueStore;
+    private final RoomCommandExecutor commandExecutor;
+    private final PlaybackStateStore stateStore;
+    private final AutoAdvanceScheduler autoAdvance;
+    private final QueueService queueService;
+    private final PlaybackBroadcaster broadcaster;
+    private final RoomRouter router;
+
+    public PlaybackService(RoomDirectory rooms,
+                           RoomQueueStore queueStore,
+                           RoomCommandExecutor commandExecutor,
+                           PlaybackStateStore stateStore,
+                           AutoAdvanceScheduler autoAdvance,
+                           QueueService queueService,
+                           PlaybackBroadcaster broadcaster,
+                           RoomRouter router) {
+        this.rooms = rooms;
+        this.queueStore = queueStore;
+        this.commandExecutor = commandExecutor;
+        this.stateStore = stateStore;
+        this.autoAdvance = autoAdvance;
+        this.queueService = queueService;
+        this.broadcaster = broadcaster;
+        this.router = router;
     }
 
     public Optional<PlaybackStateResponse> getState(String roomCode) {
-        return readState(roomCode).map(this::toResponse);
+        return stateStore.read(roomCode).map(this::toResponse);
     }
 
-    @Transactional
     public PlaybackStateResponse play(String roomCode, UUID queueItemId, AuthenticatedMember member, int positionMs) {
         verifyPlaybackPermission(roomCode, member);
-        ensureRoomExists(roomCode);
-        QueueItem item = queueItemRepository.findById(queueItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Queue item not found"));
-        if (!item.getRoom().getCode().equals(roomCode)) {
-            throw new ResourceNotFoundException("Item not in room");
+        RoomRef room = rooms.require(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.Play(roomCode, queueItemId, member, positionMs),
+                    new TypeReference<PlaybackStateResponse>() {});
         }
-        PlaybackState state = PlaybackState.builder()
-                .roomId(item.getRoom().getId())
-                .nowPlayingQueueItemId(item.getId())
-                .positionMs(positionMs)
-                .playing(true)
-                .lastUpdateTs(Instant.now())
-                .build();
-        writeState(roomCode, state);
-        broadcast(roomCode, state);
-        return toResponse(state);
+        return commandExecutor.execute(room.id(), () -> {
+            QueueEntry item = queueStore.forRoom(room.id()).find(queueItemId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Queue item not found"));
+            PlaybackState state = PlaybackState.builder()
+                    .roomId(room.id())
+                    .nowPlayingQueueItemId(item.id())
+                    .positionMs(positionMs)
+                    .playing(true)
+                    .lastUpdateTs(Instant.now())
+                    .durationMs(item.durationSeconds() * 1000)
+                    .build();
+            PlaybackState stored = stateStore.write(roomCode, state);
+            queueService.markPlaying(room, item.id());
+            broadcast(roomCode, stored, true);
+            autoAdvance.track(roomCode, stored, item.durationSeconds(), armed -> advance(roomCode, armed));
+            return toResponse(stored);
+        });
     }
 
-    @Transactional
     public PlaybackStateResponse pause(String roomCode, AuthenticatedMember member) {
         verifyPlaybackPermission(roomCode, member);
-        PlaybackState current = readState(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Playback state not found"));
-        PlaybackState next = PlaybackState.builder()
-                .roomId(current.getRoomId())
-                .nowPlayingQueueItemId(current.getNowPlayingQueueItemId())
-                .positionMs(current.getPositionMs())
-                .playing(false)
-                .lastUpdateTs(Instant.now())
-                .build();
-        writeState(roomCode, next);
-        broadcast(roomCode, next);
-        return toResponse(next);
+        RoomRef room = rooms.require(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.Pause(roomCode, member),
+                    new TypeReference<PlaybackStateResponse>() {});
+        }
+        return commandExecutor.execute(room.id(), () -> {
+            PlaybackState next = stateStore.pause(roomCode, PlaybackStateStore.ANY_VERSION, Instant.now())
+                    .orElseThrow(() -> new ResourceNotFoundException("Playback state not found"));
+            autoAdvance.cancel(roomCode);
+            broadcast(roomCode, next, true);
+            return toResponse(next);
+        });
     }
 
-    @Transactional
     public PlaybackStateResponse seek(String roomCode, int positionMs, AuthenticatedMember member) {
         verifyPlaybackPermission(roomCode, member);
-        PlaybackState current = readState(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Playback state not found"));
-        PlaybackState next = PlaybackState.builder()
-                .roomId(current.getRoomId())
-                .nowPlayingQueueItemId(current.getNowPlayingQueueItemId())
-                .positionMs(positionMs)
-                .playing(current.isPlaying())
-                .lastUpdateTs(Instant.now()) 
-                .build();
-        writeState(roomCode, next);
-        broadcast(roomCode, next);
-        return toResponse(next);
+        RoomRef room = rooms.require(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.Seek(roomCode, positionMs, member),
+                    new TypeReference<PlaybackStateResponse>() {});
+        }
+        return commandExecutor.execute(room.id(), () -> {
+            PlaybackState next = stateStore.seek(roomCode, PlaybackStateStore.ANY_VERSION, positionMs, Instant.now())
+                    .orElseThrow(() -> new ResourceNotFoundException("Playback state not found"));
+            trackCurrentItem(room, next);
+            broadcast(roomCode, next, false);
+            return toResponse(next);
+        });
     }
 
-    private void ensureRoomExists(String roomCode) {
-        roomRepository.findByCode(roomCode).orElseThrow(() -> new ResourceNotFoundException("Room not found"));
+    /**
+     * Fired by {@link AutoAdvanceScheduler} when the current track should have ended: marks it PLAYED and
+     * starts the next queued item, or pauses at the end of the queue. Only acts if the playback state is still at
+     * {@code armedVersion}; the state write is a compare-and-set against it, so of two timers for the same track
+     * (e.g. on two nodes) only one advances.
+     */
+    private void advance(String roomCode, long armedVersion) {
+        RoomRef room = rooms.find(roomCode).orElse(null);
+        if (room == null || !room.isActive()) {
+            autoAdvance.cancel(roomCode);
+            broadcaster.forget(roomCode);
+            return;
+        }
+        if (!router.isLocal(room)) {
+            // the room moved to another node, which runs its own timer from the next playback change
+            autoAdvance.cancel(roomCode);
+            return;
+        }
+        try {
+            commandExecutor.execute(room.id(), () -> {
+                advanceOnCommandThread(room, armedVersion);
+                return null;
+            });
+        } catch (ConflictException ex) {
+            log.debug("Auto-advance skipped for room {}: {}", roomCode, ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.warn("Auto-advance failed for room {}: {}", roomCode, ex.getMessage());
+        }
     }
 
-    private void verifyPlaybackPermission(String roomCode, AuthenticatedMember member) {
-        if (!member.roomCode().equals(roomCode)) {
-            throw new ForbiddenOperationException("Membership not associated with this room");
-        }
-        if (!member.capabilities().contains("PLAYBACK_CONTROL")) {
-            throw new ForbiddenOperationException("You do not have playback control permissions");
+    /**
+     * End-of-track timers live in memory on the node that armed them, so a restart, deploy or lost lease leaves a
+     * playing room without one. Every node periodically walks the rooms whose state is playing and re-arms the
+     * timer of each room it owns, claiming rooms whose owner has gone.
+     */
+    @Scheduled(initialDelayString = "${jookbox.playback.rearm-initial-delay-ms:5000}",
+            fixedDelayString = "${jookbox.playback.rearm-interval-ms:30000}")
+    public void rearmPlayingRooms() {
+        for (String roomCode : stateStore.playingRooms()) {
+            if (autoAdvance.isTracking(roomCode)) {
+                continue;
+            }
+            try {
+                RoomRef room = rooms.find(roomCode).orElse(null);
+                if (room == null || !room.isActive()) {
+                    stateStore.forgetPlaying(roomCode);
+                } else if (router.isLocal(room)) {
+                    rearm(room);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Failed to re-arm auto-advance for room {}: {}", roomCode, ex.getMessage());
+            }
         }
     }
 
-    private void writeState(String roomCode, PlaybackState state) {
-        try {
-            String json = objectMapper.writeValueAsString(state);
-            redisTemplate.opsForValue().set(playbackKey(roomCode), json);
-        } catch (JsonProcessingException e) {
-            throw new IllegalStateException("Failed to serialize playback state", e);
+    /**
+     * A node that takes over a room arms its timer straight away rather than waiting for the next scan.
+     */
+    @EventListener
+    public void onRoomClaimed(RoomClaimed event) {
+        if (autoAdvance.isTracking(event.roomCode())) {
+            return;
         }
+        rooms.find(event.roomCode()).filter(RoomRef::isActive).ifPresent(room -> {
+            try {
+                rearm(room);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to re-arm auto-advance for room {}: {}", room.code(), ex.getMessage());
+            }
+        });
+    }
+
+    private void rearm(RoomRef room) {
+        commandExecutor.execute(room.id(), () -> {
+            PlaybackState current = stateStore.read(room.code()).orElse(null);
+            if (current == null || !current.isPlaying()) {
+                stateStore.forgetPlaying(room.code());
+            } else if (!autoAdvance.isTracking(room.code())) {
+                // a track that ended while nobody was tracking it gets a deadline in the past and advances at once
+                trackCurrentItem(room, current);
+            }
+            return null;
+        });
     }
 
-    private Optional<PlaybackState> readState(String roomCode) {
-        String json = redisTemplate.opsForValue().get(playbackKey(roomCode));
-        if (json == null) {
-            return Optional.empty();
+    private void advanceOnCommandThread(RoomRef room, long armedVersion) {
+        String roomCode = room.code();
+        PlaybackState current = stateStore.read(roomCode).orElse(null);
+        if (current == null || !current.isPlaying()) {
+            autoAdvance.cancel(roomCode);
+            return;
         }
-        try {
-            return Optional.of(objectMapper.readValue(json, PlaybackState.class));
-        } catch (JsonProcessingException e) {
-            return Optional.empty();
+        if (current.getVersion() != armedVersion) {
+            // the state moved on since the timer was armed, e.g. a seek handled by another node
+            trackCurrentItem(room, current);
+            return;
+        }
+        RoomQueue queue = queueStore.forRoom(room.id());
+        Optional<QueueEntry> finished = queue.find(current.getNowPlayingQueueItemId());
+        List<QueueEntry> items = queue.snapshot().items();
+        int nextIndex = finished.map(entry -> items.indexOf(entry) + 1).orElse(0);
+        if (nextIndex >= items.size()) {
+            // throws ConflictException if another timer got there first, before the item is marked PLAYED
+            stateStore.pause(roomCode, armedVersion, Instant.now())
+                    .ifPresent(paused -> broadcast(roomCode, paused, true));
+            finished.ifPresent(entry -> queueService.completeItem(room, entry.id(), QueueItemStatus.PLAYED));
+            autoAdvance.cancel(roomCode);
+            return;
+        }
+        QueueEntry next = items.get(nextIndex);
+        PlaybackState stored = stateStore.write(roomCode, PlaybackState.builder()
+                .roomId(room.id())
+                .nowPlayingQueueItemId(next.id())
+                .positionMs(0)
+                .playing(true)
+                .lastUpdateTs(Instant.now())
+                .durationMs(next.durationSeconds() * 1000)
+                .build(), armedVersion);
+        finished.ifPresent(entry -> queueService.completeItem(room, entry.id(), QueueItemStatus.PLAYED));
+        queueService.markPlaying(room, next.id());
+        broadcast(roomCode, stored, true);
+        autoAdvance.track(roomCode, stored, next.durationSeconds(), armed -> advance(roomCode, armed));
+    }
+
+    private void trackCurrentItem(RoomRef room, PlaybackState state) {
+        Optional<QueueEntry> item = queueStore.forRoom(room.id()).find(state.getNowPlayingQueueItemId());
+        if (item.isEmpty()) {
+            autoAdvance.cancel(room.code());
+            return;
         }
+        autoAdvance.track(room.code(), state, item.get().durationSeconds(), armed -> advance(room.code(), armed));
     }
 
-    private String playbackKey(String roomCode) {
-        return "playback:" + roomCode;
+    private void verifyPlaybackPermission(String roomCode, AuthenticatedMember member) {
+        if (!member.roomCode().equals(roomCode)) {
+            throw new ForbiddenOperationException("Membership not associated with this room");
+        }
+        if (!member.hasCapability(Capability.PLAYBACK_CONTROL)) {
+            throw new ForbiddenOperationException("You do not have playback control permissions");
+        }
     }
 
     private PlaybackStateResponse toResponse(PlaybackState state) {
+        Instant now = Instant.now();
         return new PlaybackStateResponse(
                 state.getNowPlayingQueueItemId(),
                 state.getPositionMs(),
                 state.isPlaying(),
-                state.getLastUpdateTs()
+                state.getLastUpdateTs(),
+                state.getVersion(),
+                state.effectivePositionMs(now),
+                now
         );
     }
 
-    private void broadcast(String roomCode, PlaybackState state) {
-        messagingTemplate.convertAndSend("/topic/rooms/" + roomCode + "/playback", toResponse(state));
+    /**
+     * Seeks go through the per-room coalescing window; play, pause and track changes are sent at once.
+     */
+    private void broadcast(String roomCode, PlaybackState state, boolean stateChange) {
+        PlaybackStateResponse frame = toResponse(state);
+        commandExecutor.afterCommand(() -> broadcaster.publish(roomCode, frame, stateChange));
     }
 }
@@ -2,176 +2,245 @@ package com.dev.jookbox.service;
 
 import com.dev.jookbox.domain.*;
 import com.dev.jookbox.repository.MembershipRepository;
-import com.dev.jookbox.repository.QueueItemRepository;
-import com.dev.jookbox.repository.RoomRepository;
 import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.service.command.RoomCommand;
+import com.dev.jookbox.service.command.RoomCommandExecutor;
+import com.dev.jookbox.service.command.RoomRouter;
+import com.dev.jookbox.service.events.RoomEventLog;
+import com.dev.jookbox.service.events.RoomEventType;
+import com.dev.jookbox.service.queue.QueueDelta;
+import com.dev.jookbox.service.queue.QueueEntry;
+import com.dev.jookbox.service.queue.QueueSnapshot;
+import com.dev.jookbox.service.queue.RoomQueue;
+import com.dev.jookbox.service.queue.RoomQueueStore;
+import com.dev.jookbox.service.room.RoomDirectory;
 import com.dev.jookbox.web.BadRequestException;
 import com.dev.jookbox.web.ForbiddenOperationException;
 import com.dev.jookbox.web.ResourceNotFoundException;
 import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.dev.jookbox.web.dto.QueueBulkAddRequest;
+import com.dev.jookbox.web.dto.QueueDeltaMessage;
 import com.dev.jookbox.web.dto.QueueItemView;
+import com.dev.jookbox.web.dto.QueueOperationView;
 import com.dev.jookbox.web.dto.QueueResponse;
 import com.dev.jookbox.web.dto.QueueMoveRequest;
-import jakarta.transaction.Transactional;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
+/**
+ * Queue reads and changes. The public entry points run on the node that owns the room (see {@link RoomRouter})
+ * and are forwarded there from any other node; {@link #completeItem} and {@link #markPlaying} are only called from
+ * code already running on the owner.
+ */
 @Service
 public class QueueService {
 
-    private final RoomRepository roomRepository;
-    private final QueueItemRepository queueItemRepository;
+    private final RoomDirectory rooms;
     private final MembershipRepository membershipRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomQueueStore queueStore;
+    private final RoomCommandExecutor commandExecutor;
+    private final RoomRouter router;
+    private final RoomEventLog eventLog;
 
-    public QueueService(RoomRepository roomRepository,
-                        QueueItemRepository queueItemRepository,
+    public QueueService(RoomDirectory rooms,
                         MembershipRepository membershipRepository,
-                        SimpMessagingTemplate messagingTemplate) {
-        this.roomRepository = roomRepository;
-        this.queueItemRepository = queueItemRepository;
+                        RoomQueueStore queueStore,
+                        RoomCommandExecutor commandExecutor,
+                        RoomRouter router,
+                        RoomEventLog eventLog) {
+        this.rooms = rooms;
         this.membershipRepository = membershipRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.queueStore = queueStore;
+        this.commandExecutor = commandExecutor;
+        this.router = router;
+        this.eventLog = eventLog;
     }
 
-    @Transactional
     public QueueResponse getQueue(String roomCode) {
-        Room room = roomRepository.findByCode(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
-        List<QueueItem> items = queueItemRepository.findByRoomOrderByPosition(room).stream()
-                .filter(item -> item.getStatus() == QueueItemStatus.QUEUED || item.getStatus() == QueueItemStatus.PLAYING)
-                .toList();
-        return new QueueResponse(items.stream().map(this::toView).toList());
+        RoomRef room = rooms.require(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.GetQueue(roomCode), new TypeReference<QueueResponse>() {});
+        }
+        return toResponse(queueStore.forRoom(room.id()).snapshot());
+    }
+
+    public long currentRevision(String roomCode) {
+        RoomRef room = rooms.require(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.CurrentRevision(roomCode), new TypeReference<Long>() {});
+        }
+        return queueStore.forRoom(room.id()).revision();
     }
 
-    @Transactional
     public QueueItemView enqueue(String roomCode, AuthenticatedMember member, QueueAddRequest request) {
-        Room room = roomRepository.findByCode(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
-        if (room.getStatus() != RoomStatus.ACTIVE) {
-            throw new BadRequestException("Room is not active");
+        RoomRef room = requireActiveRoom(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.Enqueue(roomCode, member, request),
+                    new TypeReference<QueueItemView>() {});
         }
-        Membership membership = membershipRepository.findById(member.membershipId())
-                .orElseThrow(() -> new ForbiddenOperationException("Membership not found"));
-        if (!membership.getRoom().getId().equals(room.getId())) {
-            throw new ForbiddenOperationException("Membership not associated with this room");
+        Membership membership = requireMembership(room, member);
+        QueueEntry entry = newEntry(room, membership, request, OffsetDateTime.now());
+        RoomQueue queue = queueStore.forRoom(room.id());
+        QueueDelta delta = mutate(room, () -> queue.append(entry));
+        QueueDelta.Operation insert = delta.operations().get(0);
+        return toView(insert.entry(), insert.index());
+    }
+
+    public List<QueueItemView> enqueueAll(String roomCode, AuthenticatedMember member, QueueBulkAddRequest request) {
+        RoomRef room = requireActiveRoom(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.EnqueueAll(roomCode, member, request),
+                    new TypeReference<List<QueueItemView>>() {});
         }
+        Membership membership = requireMembership(room, member);
         OffsetDateTime now = OffsetDateTime.now();
-        int position = (int) queueItemRepository.findByRoomOrderByPosition(room).stream()
-                .filter(item -> item.getStatus() == QueueItemStatus.QUEUED || item.getStatus() == QueueItemStatus.PLAYING)
-                .count();
-        QueueItem item = queueItemRepository.save(QueueItem.builder()
-                .id(UUID.randomUUID())
-                .room(room)
-                .position(position)
-                .videoId(request.videoId())
-                .title(request.title())
-                .durationSeconds(request.durationSeconds())
-                .thumbUrl(request.thumbUrl())
-                .addedBy(membership.getUser())
-                .status(QueueItemStatus.QUEUED)
-                .enqueuedAt(now)
-                .build());
-        QueueItemView view = toView(item);
-        broadcastQueue(roomCode);
-        return view;
-    }
-
-    @Transactional
+        List<QueueEntry> entries = request.items().stream()
+                .map(item -> newEntry(room, membership, item, now))
+                .toList();
+        RoomQueue queue = queueStore.forRoom(room.id());
+        QueueDelta delta = mutate(room, () -> queue.appendAll(entries));
+        return delta.operations().stream()
+                .map(insert -> toView(insert.entry(), insert.index()))
+                .toList();
+    }
+
     public QueueResponse move(String roomCode, UUID itemId, QueueMoveRequest request, AuthenticatedMember member) {
-        if (!member.capabilities().contains(Capability.REORDER_QUEUE.name())) {
+        if (!member.hasCapability(Capability.REORDER_QUEUE)) {
             throw new ForbiddenOperationException("You do not have permission to reorder the queue");
         }
-        Room room = roomRepository.findByCode(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
-        if (room.getStatus() != RoomStatus.ACTIVE) {
-            throw new BadRequestException("Room is not active");
+        RoomRef room = requireActiveRoom(roomCode);
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.Move(roomCode, itemId, request, member),
+                    new TypeReference<QueueResponse>() {});
         }
         membershipRepository.findById(member.membershipId())
-                .filter(m -> m.getRoom().getCode().equals(roomCode))
+                .filter(m -> m.getRoom().getId().equals(room.id()))
                 .orElseThrow(() -> new ForbiddenOperationException("Membership not associated with this room"));
-        QueueItem target = queueItemRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Queue item not found"));
-        if (!target.getRoom().getId().equals(room.getId())) {
-            throw new BadRequestException("Item not in room");
-        }
-        List<QueueItem> items = new ArrayList<>(queueItemRepository.findByRoomOrderByPosition(room));
-        items.sort(Comparator.comparingInt(QueueItem::getPosition));
-        int currentIndex = -1;
-        for (int i = 0; i < items.size(); i++) {
-            if (items.get(i).getId().equals(itemId)) {
-                currentIndex = i;
-                break;
+        RoomQueue queue = queueStore.forRoom(room.id());
+        return commandExecutor.execute(room.id(), () -> {
+            if (request.expectedRevision() != null) {
+                queue.verifyUnchangedSince(request.expectedRevision(), itemId);
             }
-        }
-        if (currentIndex < 0) {
-            throw new ResourceNotFoundException("Item not found in queue");
-        }
-        items.remove(currentIndex);
-        int newIndex = Math.min(request.newPosition(), items.size());
-        items.add(newIndex, target);
-        for (int i = 0; i < items.size(); i++) {
-            items.get(i).setPosition(i);
-        }
-        queueItemRepository.saveAll(items);
-        QueueResponse response = new QueueResponse(items.stream().map(this::toView).collect(Collectors.toList()));
-        broadcastQueue(roomCode);
-        return response;
+            broadcastDelta(roomCode, queue.move(itemId, request.newPosition()));
+            return toResponse(queue.snapshot());
+        });
     }
 
-    @Transactional
     public void removeItem(String roomCode, UUID itemId, AuthenticatedMember member) {
-        Room room = roomRepository.findByCode(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
-        if (room.getStatus() != RoomStatus.ACTIVE) {
-            throw new BadRequestException("Room is not active");
+        RoomRef room = requireActiveRoom(roomCode);
+        if (!router.isLocal(room)) {
+            router.forward(room, new RoomCommand.Remove(roomCode, itemId, member), new TypeReference<Void>() {});
+            return;
         }
         membershipRepository.findById(member.membershipId())
-                .filter(m -> m.getRoom().getCode().equals(roomCode))
+                .filter(m -> m.getRoom().getId().equals(room.id()))
                 .orElseThrow(() -> new ForbiddenOperationException("Membership not associated with this room"));
-        QueueItem item = queueItemRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Queue item not found"));
-        if (!item.getRoom().getId().equals(room.getId())) {
-            throw new BadRequestException("Item not in room");
-        }
-        if (!member.capabilities().contains(Capability.REMOVE_ITEMS.name()) && member.role() != Role.HOST) {
+        RoomQueue queue = queueStore.forRoom(room.id());
+        queue.find(itemId).orElseThrow(() -> new ResourceNotFoundException("Queue item not found"));
+        if (!member.hasCapability(Capability.REMOVE_ITEMS) && member.role() != Role.HOST) {
             throw new ForbiddenOperationException("You do not have permission to remove items");
         }
-        List<QueueItem> items = new ArrayList<>(queueItemRepository.findByRoomOrderByPosition(room));
-        items.removeIf(q -> q.getId().equals(itemId));
-        for (int i = 0; i < items.size(); i++) {
-            items.get(i).setPosition(i);
+        mutate(room, () -> queue.retire(itemId, QueueItemStatus.REMOVED));
+    }
+
+    private RoomRef requireActiveRoom(String roomCode) {
+        RoomRef room = rooms.require(roomCode);
+        if (!room.isActive()) {
+            throw new BadRequestException("Room is not active");
         }
-        item.setStatus(QueueItemStatus.REMOVED);
-        item.setPosition(-1);
-        queueItemRepository.save(item);
-        queueItemRepository.saveAll(items);
-        broadcastQueue(roomCode);
+        return room;
+    }
+
+    private Membership requireMembership(RoomRef room, AuthenticatedMember member) {
+        Membership membership = membershipRepository.findWithUserById(member.membershipId())
+                .orElseThrow(() -> new ForbiddenOperationException("Membership not found"));
+        if (!membership.getRoom().getId().equals(room.id())) {
+            throw new ForbiddenOperationException("Membership not associated with this room");
+        }
+        return membership;
+    }
+
+    private QueueEntry newEntry(RoomRef room, Membership membership, QueueAddRequest request, OffsetDateTime now) {
+        return new QueueEntry(
+                UUID.randomUUID(),
+                room.id(),
+                request.videoId(),
+                request.title(),
+                request.durationSeconds(),
+                request.thumbUrl(),
+                membership.getUser().getId(),
+                membership.getUser().getDisplayName(),
+                QueueItemStatus.QUEUED,
+                0,
+                now);
+    }
+
+    public void completeItem(RoomRef room, UUID itemId, QueueItemStatus status) {
+        RoomQueue queue = queueStore.forRoom(room.id());
+        mutate(room, () -> queue.retire(itemId, status));
     }
 
-    private void broadcastQueue(String roomCode) {
-        QueueResponse payload = getQueue(roomCode);
-        messagingTemplate.convertAndSend("/topic/rooms/" + roomCode + "/queue", payload);
+    public void markPlaying(RoomRef room, UUID itemId) {
+        RoomQueue queue = queueStore.forRoom(room.id());
+        mutate(room, () -> queue.markPlaying(itemId));
+    }
+
+    /**
+     * Applies a queue mutation on the room's command thread. Its delta is broadcast once the command is done,
+     * still in revision order.
+     */
+    private QueueDelta mutate(RoomRef room, Supplier<QueueDelta> mutation) {
+        return commandExecutor.execute(room.id(), () -> {
+            QueueDelta delta = mutation.get();
+            broadcastDelta(room.code(), delta);
+            return delta;
+        });
+    }
+
+    private void broadcastDelta(String roomCode, QueueDelta delta) {
+        commandExecutor.afterCommand(() -> eventLog.publish(roomCode, RoomEventType.QUEUE, toMessage(delta)));
+    }
+
+    private QueueDeltaMessage toMessage(QueueDelta delta) {
+        List<QueueOperationView> ops = new ArrayList<>(delta.operations().size());
+        for (QueueDelta.Operation operation : delta.operations()) {
+            QueueEntry entry = operation.entry();
+            ops.add(switch (operation.type()) {
+                case INSERT -> new QueueOperationView(operation.type(), entry.id(), operation.index(), null,
+                        toView(entry, operation.index()));
+                case MOVE -> new QueueOperationView(operation.type(), entry.id(), operation.index(), null, null);
+                case REMOVE, STATUS -> new QueueOperationView(operation.type(), entry.id(), null, entry.status(), null);
+            });
+        }
+        return new QueueDeltaMessage(delta.revision(), ops);
+    }
+
+    private QueueResponse toResponse(QueueSnapshot snapshot) {
+        List<QueueEntry> entries = snapshot.items();
+        List<QueueItemView> views = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            views.add(toView(entries.get(i), i));
+        }
+        return new QueueResponse(snapshot.revision(), views);
     }
 
-    private QueueItemView toView(QueueItem item) {
+    private QueueItemView toView(QueueEntry entry, int index) {
         return new QueueItemView(
-                item.getId(),
-                item.getVideoId(),
-                item.getTitle(),
-                item.getDurationSeconds(),
-                item.getThumbUrl(),
-                item.getPosition(),
-                item.getStatus(),
-                item.getEnqueuedAt(),
-                item.getAddedBy() != null ? item.getAddedBy().getDisplayName() : null
+                entry.id(),
+                entry.videoId(),
+                entry.title(),
+                entry.durationSeconds(),
+                entry.thumbUrl(),
+                index,
+                entry.status(),
+                entry.enqueuedAt(),
+                entry.addedByName()
         );
     }
 }
@@ -5,43 +5,54 @@ import com.dev.jookbox.repository.MembershipRepository;
 import com.dev.jookbox.repository.RoomRepository;
 import com.dev.jookbox.repository.UserRepository;
 import com.dev.jookbox.security.JwtService;
+import com.dev.jookbox.service.membership.MemberCounter;
+import com.dev.jookbox.service.room.RoomCodePool;
+import com.dev.jookbox.service.room.RoomDirectory;
 import com.dev.jookbox.web.BadRequestException;
-import com.dev.jookbox.web.ResourceNotFoundException;
 import com.dev.jookbox.web.dto.JoinRoomRequest;
 import com.dev.jookbox.web.dto.MembershipTokenResponse;
 import com.dev.jookbox.web.dto.RoomCreationRequest;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.security.SecureRandom;
 import java.time.OffsetDateTime;
-import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class RoomService {
 
-    private static final String ROOM_CODE_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
-    private static final int ROOM_CODE_LENGTH = 6;
+    private static final int MAX_MEMBERS = 10;
 
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
     private final MembershipRepository membershipRepository;
     private final JwtService jwtService;
-    private final SecureRandom secureRandom = new SecureRandom();
+    private final MemberCounter memberCounter;
+    private final RoomDirectory rooms;
+    private final RoomCodePool codePool;
 
     public RoomService(RoomRepository roomRepository,
                        UserRepository userRepository,
                        MembershipRepository membershipRepository,
-                       JwtService jwtService) {
+                       JwtService jwtService,
+                       MemberCounter memberCounter,
+                       RoomDirectory rooms,
+                       RoomCodePool codePool) {
         this.roomRepository = roomRepository;
         this.userRepository = userRepository;
         this.membershipRepository = membershipRepository;
         this.jwtService = jwtService;
+        this.memberCounter = memberCounter;
+        this.rooms = rooms;
+        this.codePool = codePool;
     }
 
     @Transactional
     public MembershipTokenResponse createRoom(RoomCreationRequest request) {
+        String code = codePool.take();
+        afterRollback(() -> codePool.release(code));
         OffsetDateTime now = OffsetDateTime.now();
         User host = userRepository.save(User.builder()
                 .id(UUID.randomUUID())
@@ -51,7 +62,7 @@ public class RoomService {
 
         Room room = roomRepository.save(Room.builder()
                 .id(UUID.randomUUID())
-                .code(generateUniqueCode())
+                .code(code)
                 .host(host)
                 .status(RoomStatus.ACTIVE)
                 .createdAt(now)
@@ -62,30 +73,26 @@ public class RoomService {
                 .room(room)
                 .user(host)
                 .role(Role.HOST)
-                .capabilities(Capability.toMask(Set.of(
-                        Capability.PLAYBACK_CONTROL,
-                        Capability.REORDER_QUEUE,
-                        Capability.REMOVE_ITEMS,
-                        Capability.SKIP_OVERRIDE)))
+                .capabilities(Capability.ALL)
                 .joinedAt(now)
                 .build());
+        afterCommit(() -> memberCounter.initialize(room.getId(), 1));
 
-        String token = jwtService.generateToken(membership);
+        String token = jwtService.generateToken(membership, room.getCode(), 0);
         return new MembershipTokenResponse(room.getCode(), token, membership.getRole(),
-                Capability.fromMask(membership.getCapabilities()).stream().map(Enum::name).collect(java.util.stream.Collectors.toSet()));
+                Capability.names(membership.getCapabilities()));
     }
 
     @Transactional
     public MembershipTokenResponse joinRoom(String roomCode, JoinRoomRequest request) {
-        Room room = roomRepository.findByCode(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
-        if (room.getStatus() != RoomStatus.ACTIVE) {
+        RoomRef room = rooms.require(roomCode);
+        if (!room.isActive()) {
             throw new BadRequestException("Room is not active");
         }
-        long currentMembers = membershipRepository.countByRoom(room);
-        if (currentMembers >= 10) {
+        if (!memberCounter.tryReserve(room.id(), MAX_MEMBERS)) {
             throw new BadRequestException("Room is full");
         }
+        afterRollback(() -> memberCounter.release(room.id()));
         OffsetDateTime now = OffsetDateTime.now();
         User user = userRepository.save(User.builder()
                 .id(UUID.randomUUID())
@@ -94,31 +101,35 @@ public class RoomService {
                 .build());
         Membership membership = membershipRepository.save(Membership.builder()
                 .id(UUID.randomUUID())
-                .room(room)
+                .room(roomRepository.getReferenceById(room.id()))
                 .user(user)
                 .role(Role.GUEST)
-                .capabilities(Capability.toMask(Set.of()))
+                .capabilities(0)
                 .joinedAt(now)
                 .build());
 
-        String token = jwtService.generateToken(membership);
-        return new MembershipTokenResponse(room.getCode(), token, membership.getRole(), Set.of());
+        String token = jwtService.generateToken(membership, room.code(), 0);
+        return new MembershipTokenResponse(room.code(), token, membership.getRole(),
+                Capability.names(membership.getCapabilities()));
     }
 
-    private String generateUniqueCode() {
-        String code;
-        do {
-            code = randomCode();
-        } while (roomRepository.existsByCode(code));
-        return code;
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
-    private String randomCode() {
-        StringBuilder sb = new StringBuilder(ROOM_CODE_LENGTH);
-        for (int i = 0; i < ROOM_CODE_LENGTH; i++) {
-            int idx = secureRandom.nextInt(ROOM_CODE_CHARS.length());
-            sb.append(ROOM_CODE_CHARS.charAt(idx));
-        }
-        return sb.toString();
+    private static void afterRollback(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
     }
 }
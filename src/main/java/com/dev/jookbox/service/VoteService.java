@@ -1,23 +1,20 @@
 package com.dev.jookbox.service;
 
-import com.dev.jookbox.domain.QueueItem;
 import com.dev.jookbox.domain.QueueItemStatus;
 import com.dev.jookbox.domain.Role;
-import com.dev.jookbox.domain.RoomStatus;
-import com.dev.jookbox.domain.Vote;
+import com.dev.jookbox.domain.RoomRef;
 import com.dev.jookbox.domain.VoteType;
-import com.dev.jookbox.repository.MembershipRepository;
-import com.dev.jookbox.repository.QueueItemRepository;
-import com.dev.jookbox.repository.RoomRepository;
-import com.dev.jookbox.repository.VoteRepository;
 import com.dev.jookbox.security.AuthenticatedMember;
-import com.dev.jookbox.web.BadRequestException;
+import com.dev.jookbox.service.command.RoomCommand;
+import com.dev.jookbox.service.command.RoomRouter;
+import com.dev.jookbox.service.queue.RoomQueue;
+import com.dev.jookbox.service.queue.RoomQueueStore;
+import com.dev.jookbox.service.room.RoomDirectory;
+import com.dev.jookbox.service.vote.VoteAuditWriter;
+import com.dev.jookbox.service.vote.VoteTally;
 import com.dev.jookbox.web.ForbiddenOperationException;
 import com.dev.jookbox.web.ResourceNotFoundException;
-import com.dev.jookbox.web.dto.QueueItemView;
-import com.dev.jookbox.web.dto.QueueResponse;
-import jakarta.transaction.Transactional;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
@@ -26,97 +23,61 @@ import java.util.UUID;
 @Service
 public class VoteService {
 
-    private final VoteRepository voteRepository;
-    private final QueueItemRepository queueItemRepository;
-    private final RoomRepository roomRepository;
-    private final MembershipRepository membershipRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomDirectory rooms;
+    private final RoomQueueStore queueStore;
+    private final QueueService queueService;
+    private final VoteTally voteTally;
+    private final VoteAuditWriter voteAuditWriter;
+    private final RoomRouter router;
 
-    public VoteService(VoteRepository voteRepository,
-                       QueueItemRepository queueItemRepository,
-                       RoomRepository roomRepository,
-                       MembershipRepository membershipRepository,
-                       SimpMessagingTemplate messagingTemplate) {
-        this.voteRepository = voteRepository;
-        this.queueItemRepository = queueItemRepository;
-        this.roomRepository = roomRepository;
-        this.membershipRepository = membershipRepository;
-        this.messagingTemplate = messagingTemplate;
+    public VoteService(RoomDirectory rooms,
+                       RoomQueueStore queueStore,
+                       QueueService queueService,
+                       VoteTally voteTally,
+                       VoteAuditWriter voteAuditWriter,
+                       RoomRouter router) {
+        this.rooms = rooms;
+        this.queueStore = queueStore;
+        this.queueService = queueService;
+        this.voteTally = voteTally;
+        this.voteAuditWriter = voteAuditWriter;
+        this.router = router;
     }
 
-    @Transactional
     public boolean vote(String roomCode, UUID itemId, VoteType type, AuthenticatedMember member) {
-        var room = roomRepository.findByCode(roomCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
-        if (room.getStatus() != RoomStatus.ACTIVE) {
+        RoomRef room = rooms.require(roomCode);
+        if (!room.isActive()) {
             throw new ForbiddenOperationException("Room is not active");
         }
-        QueueItem item = queueItemRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Queue item not found"));
-        if (!item.getRoom().getId().equals(room.getId())) {
-            throw new BadRequestException("Item not in room");
+        if (!router.isLocal(room)) {
+            return router.forward(room, new RoomCommand.Vote(roomCode, itemId, type, member),
+                    new TypeReference<Boolean>() {});
         }
-        if (member.role() == Role.HOST && member.roomId().equals(room.getId())) {
-            applyOutcome(type, item, roomCode);
-            return true;
-        }
-        var membership = membershipRepository.findById(member.membershipId())
-                .orElseThrow(() -> new ForbiddenOperationException("Membership not found"));
-        if (!membership.getRoom().getId().equals(room.getId())) {
+        RoomQueue queue = queueStore.forRoom(room.id());
+        queue.find(itemId).orElseThrow(() -> new ResourceNotFoundException("Queue item not found"));
+        // the membership claims come from a signed token, so they are trusted without a lookup
+        if (!member.roomId().equals(room.id())) {
             throw new ForbiddenOperationException("Membership not associated with this room");
         }
-        if (voteRepository.existsByQueueItemAndUserAndType(item, membership.getUser(), type)) {
-            throw new ForbiddenOperationException("Vote already recorded");
+        if (member.role() == Role.HOST) {
+            applyOutcome(type, itemId, room);
+            return true;
         }
-        Vote vote = Vote.builder()
-                .id(UUID.randomUUID())
-                .queueItem(item)
-                .user(membership.getUser())
-                .type(type)
-                .createdAt(OffsetDateTime.now())
-                .build();
-        voteRepository.save(vote);
 
-        long totalMembers = membershipRepository.countByRoom(room);
-        long votes = voteRepository.countByQueueItemAndType(item, type);
-        long required = Math.max(1, (totalMembers / 2) + 1);
-        if (votes >= required) {
-            applyOutcome(type, item, roomCode);
+        VoteTally.Result result = voteTally.record(room.id(), itemId, type, member.userId());
+        if (result == VoteTally.Result.DUPLICATE) {
+            throw new ForbiddenOperationException("Vote already recorded");
+        }
+        voteAuditWriter.append(itemId, member.userId(), type, OffsetDateTime.now());
+        if (result == VoteTally.Result.THRESHOLD_REACHED) {
+            applyOutcome(type, itemId, room);
             return true;
         }
         return false;
     }
 
-    private void applyOutcome(VoteType type, QueueItem item, String roomCode) {
-        if (type == VoteType.SKIP) {
-            item.setStatus(QueueItemStatus.PLAYED);
-        } else {
-            item.setStatus(QueueItemStatus.REMOVED);
-        }
-        item.setPosition(-1);
-        var remaining = queueItemRepository.findByRoomOrderByPosition(item.getRoom()).stream()
-                .filter(q -> !q.getId().equals(item.getId()))
-                .filter(q -> q.getStatus() == QueueItemStatus.QUEUED || q.getStatus() == QueueItemStatus.PLAYING)
-                .toList();
-        for (int i = 0; i < remaining.size(); i++) {
-            remaining.get(i).setPosition(i);
-        }
-        queueItemRepository.save(item);
-        queueItemRepository.saveAll(remaining);
-        var updated = remaining.stream()
-                .map(q -> new QueueItemView(
-                        q.getId(),
-                        q.getVideoId(),
-                        q.getTitle(),
-                        q.getDurationSeconds(),
-                        q.getThumbUrl(),
-                        q.getPosition(),
-                        q.getStatus(),
-                        q.getEnqueuedAt(),
-                        q.getAddedBy() != null ? q.getAddedBy().getDisplayName() : null
-                ))
-                .toList();
-        messagingTemplate.convertAndSend("/topic/rooms/" + roomCode + "/queue",
-                new QueueResponse(updated));
+    private void applyOutcome(VoteType type, UUID itemId, RoomRef room) {
+        QueueItemStatus status = type == VoteType.SKIP ? QueueItemStatus.PLAYED : QueueItemStatus.REMOVED;
+        queueService.completeItem(room, itemId, status);
     }
 }
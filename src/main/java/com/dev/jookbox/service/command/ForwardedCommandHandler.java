@@ -0,0 +1,110 @@
+package com.dev.jookbox.service.command;
+
+import com.dev.jookbox.config.NodeIdentity;
+import com.dev.jookbox.service.PlaybackService;
+import com.dev.jookbox.service.QueueService;
+import com.dev.jookbox.service.VoteService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs commands other nodes forwarded to this one through {@link RedisRoomRouter}. Each command calls the same
+ * service method the sender was asked to run, on a virtual thread since it blocks on the room's command shard,
+ * and the result or error goes back on the sender's reply channel.
+ */
+@Component
+@ConditionalOnProperty(name = "jookbox.broker.relay", havingValue = "redis")
+public class ForwardedCommandHandler implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ForwardedCommandHandler.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final QueueService queueService;
+    private final PlaybackService playbackService;
+    private final VoteService voteService;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ForwardedCommandHandler(StringRedisTemplate redisTemplate,
+                                   RedisMessageListenerContainer listenerContainer,
+                                   NodeIdentity nodeIdentity,
+                                   ObjectMapper objectMapper,
+                                   QueueService queueService,
+                                   PlaybackService playbackService,
+                                   VoteService voteService) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.queueService = queueService;
+        this.playbackService = playbackService;
+        this.voteService = voteService;
+        listenerContainer.addMessageListener(this,
+                new ChannelTopic(RedisRoomRouter.COMMAND_CHANNEL_PREFIX + nodeIdentity.id()));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        RedisRoomRouter.Request request;
+        try {
+            request = objectMapper.readValue(message.getBody(), RedisRoomRouter.Request.class);
+        } catch (IOException ex) {
+            log.warn("Ignoring malformed forwarded room command: {}", ex.getMessage());
+            return;
+        }
+        workers.execute(() -> handle(request));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private void handle(RedisRoomRouter.Request request) {
+        RedisRoomRouter.Reply reply;
+        try {
+            Object result = RedisRoomRouter.runForwarded(() -> dispatch(request.command()));
+            reply = RedisRoomRouter.Reply.success(request.requestId(),
+                    result == null ? null : objectMapper.valueToTree(result));
+        } catch (RuntimeException ex) {
+            reply = RedisRoomRouter.Reply.failure(request.requestId(), ex);
+        }
+        try {
+            redisTemplate.convertAndSend(RedisRoomRouter.REPLY_CHANNEL_PREFIX + request.replyTo(),
+                    objectMapper.writeValueAsString(reply));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            log.warn("Failed to reply to forwarded command for room {}: {}",
+                    request.command().roomCode(), ex.getMessage());
+        }
+    }
+
+    private Object dispatch(RoomCommand command) {
+        return switch (command) {
+            case RoomCommand.GetQueue c -> queueService.getQueue(c.roomCode());
+            case RoomCommand.CurrentRevision c -> queueService.currentRevision(c.roomCode());
+            case RoomCommand.Enqueue c -> queueService.enqueue(c.roomCode(), c.member(), c.request());
+            case RoomCommand.EnqueueAll c -> queueService.enqueueAll(c.roomCode(), c.member(), c.request());
+            case RoomCommand.Move c -> queueService.move(c.roomCode(), c.itemId(), c.request(), c.member());
+            case RoomCommand.Remove c -> {
+                queueService.removeItem(c.roomCode(), c.itemId(), c.member());
+                yield null;
+            }
+            case RoomCommand.Vote c -> voteService.vote(c.roomCode(), c.itemId(), c.type(), c.member());
+            case RoomCommand.Play c -> playbackService.play(c.roomCode(), c.queueItemId(), c.member(), c.positionMs());
+            case RoomCommand.Pause c -> playbackService.pause(c.roomCode(), c.member());
+            case RoomCommand.Seek c -> playbackService.seek(c.roomCode(), c.positionMs(), c.member());
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.dev.jookbox.service.command;
+
+import com.dev.jookbox.domain.RoomRef;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Single node: every room is local.
+ */
+@Component
+@ConditionalOnProperty(name = "jookbox.broker.relay", havingValue = "local", matchIfMissing = true)
+public class LocalRoomRouter implements RoomRouter {
+
+    @Override
+    public boolean isLocal(RoomRef room) {
+        return true;
+    }
+
+    @Override
+    public boolean holdsLease(UUID roomId) {
+        return true;
+    }
+
+    @Override
+    public <T> T forward(RoomRef room, RoomCommand command, TypeReference<T> resultType) {
+        throw new IllegalStateException("Room " + room.code() + " is always local on a single node");
+    }
+}
@@ -0,0 +1,325 @@
+package com.dev.jookbox.service.command;
+
+import com.dev.jookbox.config.NodeIdentity;
+import com.dev.jookbox.config.RoomCommandProperties;
+import com.dev.jookbox.domain.RoomRef;
+import com.dev.jookbox.service.playback.AutoAdvanceScheduler;
+import com.dev.jookbox.service.queue.RoomQueueStore;
+import com.dev.jookbox.web.BadRequestException;
+import com.dev.jookbox.web.ConflictException;
+import com.dev.jookbox.web.ForbiddenOperationException;
+import com.dev.jookbox.web.ResourceNotFoundException;
+import com.dev.jookbox.web.RoomBusyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Room ownership across nodes. A node owns a room while it holds the lease {@code room:{id}:owner} (its node id,
+ * expiring after {@code jookbox.commands.owner-lease}); the first node to touch an unowned room claims it, and the
+ * owner renews its leases every {@code jookbox.commands.owner-renew-interval-ms}. Other nodes forward the room's
+ * commands to the owner over {@code room-commands:{node}} and wait for the reply on {@code room-replies:{node}};
+ * {@link ForwardedCommandHandler} runs them on the owner.
+ * <p>
+ * A node that claims a room raises {@link RoomClaimed} so it can pick up the room's state, e.g. its end-of-track
+ * timer. A lease whose room has no loaded queue and no auto-advance timer is released, so a quiet room can move to
+ * whichever node serves it next. A node that finds its lease taken (e.g. after a long pause) drops its copy of the
+ * room. The queue flusher asks {@link #holdsLease} inside each flush, so a node that lost the room while changes
+ * were pending drops them instead of writing them. On shutdown the flusher, which depends on this router, writes
+ * the queues first; the node then releases its leases so the rooms move on at once.
+ */
+@Component
+@ConditionalOnProperty(name = "jookbox.broker.relay", havingValue = "redis")
+public class RedisRoomRouter implements RoomRouter, MessageListener {
+
+    static final String COMMAND_CHANNEL_PREFIX = "room-commands:";
+    static final String REPLY_CHANNEL_PREFIX = "room-replies:";
+
+    private static final Logger log = LoggerFactory.getLogger(RedisRoomRouter.class);
+    private static final ThreadLocal<Boolean> FORWARDED = new ThreadLocal<>();
+
+    private final StringRedisTemplate redisTemplate;
+    private final NodeIdentity nodeIdentity;
+    private final ObjectMapper objectMapper;
+    private final RoomQueueStore queueStore;
+    private final AutoAdvanceScheduler autoAdvance;
+    private final ApplicationEventPublisher events;
+    private final long leaseMillis;
+    private final long replyTimeoutMillis;
+    private final Map<UUID, Lease> leases = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Reply>> pendingReplies = new ConcurrentHashMap<>();
+    private final RedisScript<String> claimScript =
+            RedisScript.of(new ClassPathResource("redis/room-owner-claim.lua"), String.class);
+    private final RedisScript<Long> releaseScript =
+            RedisScript.of(new ClassPathResource("redis/room-owner-release.lua"), Long.class);
+
+    public RedisRoomRouter(StringRedisTemplate redisTemplate,
+                           RedisMessageListenerContainer listenerContainer,
+                           NodeIdentity nodeIdentity,
+                           ObjectMapper objectMapper,
+                           RoomQueueStore queueStore,
+                           AutoAdvanceScheduler autoAdvance,
+                           ApplicationEventPublisher events,
+                           RoomCommandProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.nodeIdentity = nodeIdentity;
+        this.objectMapper = objectMapper;
+        this.queueStore = queueStore;
+        this.autoAdvance = autoAdvance;
+        this.events = events;
+        this.leaseMillis = properties.ownerLease().toMillis();
+        // the owner answers a command that timed out on its shard itself, so give it time to do so
+        this.replyTimeoutMillis = 2 * properties.timeout().toMillis();
+        listenerContainer.addMessageListener(this, new ChannelTopic(REPLY_CHANNEL_PREFIX + nodeIdentity.id()));
+        Gauge.builder("jookbox.rooms.owned", leases, Map::size)
+                .description("Rooms whose commands run on this node")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isLocal(RoomRef room) {
+        long now = System.currentTimeMillis();
+        Lease lease = leases.get(room.id());
+        if (lease != null && now - lease.renewedAt < leaseMillis / 2) {
+            lease.lastUsedAt = now;
+            return true;
+        }
+        if (nodeIdentity.id().equals(claim(room.id()))) {
+            Lease claimed = new Lease(room.code(), now);
+            if (leases.compute(room.id(), (id, held) -> held != null ? held.renewed(now) : claimed) == claimed) {
+                events.publishEvent(new RoomClaimed(room.id(), room.code()));
+            }
+            return true;
+        }
+        if (lease != null) {
+            lost(room.id(), lease);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean holdsLease(UUID roomId) {
+        if (nodeIdentity.id().equals(claim(roomId))) {
+            Lease lease = leases.get(roomId);
+            if (lease != null) {
+                lease.renewedAt = System.currentTimeMillis();
+            }
+            return true;
+        }
+        Lease lease = leases.get(roomId);
+        if (lease != null) {
+            lost(roomId, lease);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> T forward(RoomRef room, RoomCommand command, TypeReference<T> resultType) {
+        if (FORWARDED.get() != null) {
+            // the sender saw this node as the owner, but the room has moved on since
+            throw new RoomBusyException("Room moved to another node, try again");
+        }
+        String owner = claim(room.id());
+        if (nodeIdentity.id().equals(owner)) {
+            throw new RoomBusyException("Room moved to this node, try again");
+        }
+        String requestId = UUID.randomUUID().toString();
+        CompletableFuture<Reply> reply = new CompletableFuture<>();
+        pendingReplies.put(requestId, reply);
+        try {
+            Long receivers = redisTemplate.convertAndSend(COMMAND_CHANNEL_PREFIX + owner,
+                    objectMapper.writeValueAsString(new Request(requestId, nodeIdentity.id(), command)));
+            if (receivers == null || receivers == 0) {
+                throw new RoomBusyException("Room owner is unavailable, try again");
+            }
+            return reply.get(replyTimeoutMillis, TimeUnit.MILLISECONDS).result(objectMapper, resultType);
+        } catch (TimeoutException ex) {
+            throw new RoomBusyException("Room owner did not answer, try again");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to encode room command", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Forwarded room command failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room owner", ex);
+        } finally {
+            pendingReplies.remove(requestId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Reply reply;
+        try {
+            reply = objectMapper.readValue(message.getBody(), Reply.class);
+        } catch (IOException ex) {
+            log.warn("Ignoring malformed room command reply: {}", ex.getMessage());
+            return;
+        }
+        CompletableFuture<Reply> pending = pendingReplies.get(reply.requestId());
+        if (pending != null) {
+            pending.complete(reply);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jookbox.commands.owner-renew-interval-ms:10000}")
+    public void renewLeases() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UUID, Lease> entry : leases.entrySet()) {
+            UUID roomId = entry.getKey();
+            Lease lease = entry.getValue();
+            try {
+                if (now - lease.lastUsedAt > leaseMillis && !queueStore.isLoaded(roomId)
+                        && !autoAdvance.isTracking(lease.roomCode)) {
+                    if (leases.remove(roomId, lease)) {
+                        release(roomId);
+                    }
+                } else if (nodeIdentity.id().equals(claim(roomId))) {
+                    lease.renewedAt = now;
+                } else {
+                    lost(roomId, lease);
+                }
+            } catch (DataAccessException ex) {
+                log.warn("Failed to renew ownership of room {}: {}", lease.roomCode, ex.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void handOver() {
+        for (UUID roomId : leases.keySet()) {
+            try {
+                release(roomId);
+            } catch (DataAccessException ex) {
+                log.warn("Failed to release ownership of room {}: {}", roomId, ex.getMessage());
+            }
+        }
+        leases.clear();
+    }
+
+    /**
+     * Runs a command received from another node. Commands on this thread are not forwarded again, so a room that
+     * moved while the command was in flight fails with {@link RoomBusyException} instead of bouncing between nodes.
+     */
+    static <T> T runForwarded(Supplier<T> command) {
+        FORWARDED.set(Boolean.TRUE);
+        try {
+            return command.get();
+        } finally {
+            FORWARDED.remove();
+        }
+    }
+
+    private String claim(UUID roomId) {
+        String owner = redisTemplate.execute(claimScript, List.of(ownerKey(roomId)),
+                nodeIdentity.id(), Long.toString(leaseMillis));
+        if (owner == null) {
+            throw new IllegalStateException("Room owner claim returned no result");
+        }
+        return owner;
+    }
+
+    private void release(UUID roomId) {
+        redisTemplate.execute(releaseScript, List.of(ownerKey(roomId)), nodeIdentity.id());
+    }
+
+    private void lost(UUID roomId, Lease lease) {
+        if (leases.remove(roomId, lease)) {
+            log.warn("Room {} was taken over by another node; dropping its local state", lease.roomCode);
+            queueStore.drop(roomId);
+            autoAdvance.cancel(lease.roomCode);
+        }
+    }
+
+    private static String ownerKey(UUID roomId) {
+        return "room:" + roomId + ":owner";
+    }
+
+    private static final class Lease {
+
+        private final String roomCode;
+        private volatile long renewedAt;
+        private volatile long lastUsedAt;
+
+        private Lease(String roomCode, long now) {
+            this.roomCode = roomCode;
+            this.renewedAt = now;
+            this.lastUsedAt = now;
+        }
+
+        private Lease renewed(long now) {
+            renewedAt = now;
+            lastUsedAt = now;
+            return this;
+        }
+    }
+
+    record Request(String requestId, String replyTo, RoomCommand command) {
+    }
+
+    /**
+     * Outcome of a forwarded command: a result, or the kind and message of the {@code web} exception it threw.
+     */
+    record Reply(String requestId, JsonNode result, String error, String message) {
+
+        static Reply success(String requestId, JsonNode result) {
+            return new Reply(requestId, result, null, null);
+        }
+
+        static Reply failure(String requestId, RuntimeException ex) {
+            String error = switch (ex) {
+                case ResourceNotFoundException e -> "not-found";
+                case ForbiddenOperationException e -> "forbidden";
+                case ConflictException e -> "conflict";
+                case RoomBusyException e -> "busy";
+                case BadRequestException e -> "bad-request";
+                default -> "failed";
+            };
+            return new Reply(requestId, null, error, ex.getMessage());
+        }
+
+        <T> T result(ObjectMapper objectMapper, TypeReference<T> resultType) {
+            if (error == null) {
+                return result == null || result.isNull() ? null : objectMapper.convertValue(result, resultType);
+            }
+            throw switch (error) {
+                case "not-found" -> new ResourceNotFoundException(message);
+                case "forbidden" -> new ForbiddenOperationException(message);
+                case "conflict" -> new ConflictException(message);
+                case "busy" -> new RoomBusyException(message);
+                case "bad-request" -> new BadRequestException(message);
+                default -> new IllegalStateException("Room command failed on its owner: " + message);
+            };
+        }
+    }
+}
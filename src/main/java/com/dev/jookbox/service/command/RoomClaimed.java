@@ -0,0 +1,9 @@
+package com.dev.jookbox.service.command;
+
+import java.util.UUID;
+
+/**
+ * Raised on the node that has just claimed a room's lease, before the room's first command runs there.
+ */
+public record RoomClaimed(UUID roomId, String roomCode) {
+}
@@ -0,0 +1,66 @@
+package com.dev.jookbox.service.command;
+
+import com.dev.jookbox.domain.VoteType;
+import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.dev.jookbox.web.dto.QueueBulkAddRequest;
+import com.dev.jookbox.web.dto.QueueMoveRequest;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.util.UUID;
+
+/**
+ * A service call forwarded to the node that owns the room, serialized as JSON with a {@code type} discriminator.
+ * Each record carries the arguments of one public service method.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = RoomCommand.GetQueue.class, name = "get-queue"),
+        @JsonSubTypes.Type(value = RoomCommand.CurrentRevision.class, name = "current-revision"),
+        @JsonSubTypes.Type(value = RoomCommand.Enqueue.class, name = "enqueue"),
+        @JsonSubTypes.Type(value = RoomCommand.EnqueueAll.class, name = "enqueue-all"),
+        @JsonSubTypes.Type(value = RoomCommand.Move.class, name = "move"),
+        @JsonSubTypes.Type(value = RoomCommand.Remove.class, name = "remove"),
+        @JsonSubTypes.Type(value = RoomCommand.Vote.class, name = "vote"),
+        @JsonSubTypes.Type(value = RoomCommand.Play.class, name = "play"),
+        @JsonSubTypes.Type(value = RoomCommand.Pause.class, name = "pause"),
+        @JsonSubTypes.Type(value = RoomCommand.Seek.class, name = "seek")
+})
+public sealed interface RoomCommand {
+
+    String roomCode();
+
+    record GetQueue(String roomCode) implements RoomCommand {
+    }
+
+    record CurrentRevision(String roomCode) implements RoomCommand {
+    }
+
+    record Enqueue(String roomCode, AuthenticatedMember member, QueueAddRequest request) implements RoomCommand {
+    }
+
+    record EnqueueAll(String roomCode, AuthenticatedMember member, QueueBulkAddRequest request)
+            implements RoomCommand {
+    }
+
+    record Move(String roomCode, UUID itemId, QueueMoveRequest request, AuthenticatedMember member)
+            implements RoomCommand {
+    }
+
+    record Remove(String roomCode, UUID itemId, AuthenticatedMember member) implements RoomCommand {
+    }
+
+    record Vote(String roomCode, UUID itemId, VoteType type, AuthenticatedMember member) implements RoomCommand {
+    }
+
+    record Play(String roomCode, UUID queueItemId, AuthenticatedMember member, int positionMs)
+            implements RoomCommand {
+    }
+
+    record Pause(String roomCode, AuthenticatedMember member) implements RoomCommand {
+    }
+
+    record Seek(String roomCode, int positionMs, AuthenticatedMember member) implements RoomCommand {
+    }
+}
@@ -0,0 +1,207 @@
+package com.dev.jookbox.service.command;
+
+import com.dev.jookbox.config.RoomCommandProperties;
+import com.dev.jookbox.web.RoomBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single writer per room: commands for a room always run on the same shard thread, one at a time and in
+ * submission order, while different rooms spread over {@code jookbox.commands.shards} threads and run in parallel.
+ * Each shard has a bounded mailbox; a full mailbox is reported as {@link RoomBusyException}. So is a caller that
+ * gives up waiting after {@code jookbox.commands.timeout}, in which case its command is cancelled and skipped by
+ * the shard, so a client retrying after the 503 does not apply it twice. A command the shard already started is
+ * waited for instead.
+ * <p>
+ * Commands should only touch in-memory room state (playback commands also write the room's playback hash);
+ * database and permission checks belong on the calling thread before submitting. Broadcasting what a command
+ * changed goes through {@link #afterCommand}, which runs once the command is done on a per-shard publisher thread,
+ * so events still leave in the order their commands ran.
+ */
+@Component
+public class RoomCommandExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomCommandExecutor.class);
+    private static final ThreadLocal<Shard> CURRENT_SHARD = new ThreadLocal<>();
+    private static final ThreadLocal<List<Runnable>> AFTER_COMMAND = new ThreadLocal<>();
+
+    private final Shard[] shards;
+    private final long timeoutMillis;
+    private final Counter cancelled;
+
+    public RoomCommandExecutor(RoomCommandProperties properties, MeterRegistry meterRegistry) {
+        this.shards = new Shard[properties.shards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, properties.mailboxCapacity(), meterRegistry);
+        }
+        this.timeoutMillis = properties.timeout().toMillis();
+        this.cancelled = Counter.builder("jookbox.room.commands.cancelled")
+                .description("Commands skipped because their caller stopped waiting")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(UUID roomId, Supplier<T> command) {
+        Shard shard = shards[Math.floorMod(roomId.hashCode(), shards.length)];
+        if (CURRENT_SHARD.get() == shard) {
+            // already on this room's writer (a command issuing a follow-up command)
+            return command.get();
+        }
+        PendingCommand<T> pending = new PendingCommand<>(shard, command);
+        try {
+            shard.executor.execute(pending);
+        } catch (RejectedExecutionException ex) {
+            throw new RoomBusyException("Room is busy, try again");
+        }
+        try {
+            try {
+                return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                if (pending.cancel()) {
+                    cancelled.increment();
+                    throw new RoomBusyException("Room is busy, try again");
+                }
+                // the shard picked it up in the meantime, so it is applied and the caller must hear how it went
+                return pending.result.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Room command failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room command", ex);
+        }
+    }
+
+    /**
+     * Runs {@code action} after the current command has finished, on the shard's publisher thread. Outside a
+     * command it runs right away.
+     */
+    public void afterCommand(Runnable action) {
+        List<Runnable> actions = AFTER_COMMAND.get();
+        if (actions == null) {
+            action.run();
+        } else {
+            actions.add(action);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            shard.publisher.shutdown();
+        }
+    }
+
+    private static final class PendingCommand<T> implements Runnable {
+
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Shard shard;
+        private final Supplier<T> command;
+
+        private PendingCommand(Shard shard, Supplier<T> command) {
+            this.shard = shard;
+            this.command = command;
+        }
+
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return;
+            }
+            List<Runnable> actions = new ArrayList<>();
+            AFTER_COMMAND.set(actions);
+            try {
+                result.complete(shard.latency.record(command));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                AFTER_COMMAND.remove();
+                // even a failed command may have changed state before throwing, so its events still go out
+                if (!actions.isEmpty()) {
+                    shard.publisher.execute(() -> actions.forEach(RoomCommandExecutor::runQuietly));
+                }
+            }
+        }
+    }
+
+    private static void runQuietly(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException ex) {
+            log.warn("Post-command action failed: {}", ex.getMessage());
+        }
+    }
+
+    private static final class Shard {
+
+        private final ThreadPoolExecutor executor;
+        private final ThreadPoolExecutor publisher;
+        private final Timer latency;
+
+        Shard(int index, int mailboxCapacity, MeterRegistry meterRegistry) {
+            ArrayBlockingQueue<Runnable> mailbox = new ArrayBlockingQueue<>(mailboxCapacity);
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, mailbox, runnable -> {
+                Thread thread = new Thread(() -> {
+                    CURRENT_SHARD.set(this);
+                    runnable.run();
+                }, "room-commands-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "room-events-" + index);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            String shardTag = Integer.toString(index);
+            Gauge.builder("jookbox.room.commands.mailbox.depth", mailbox, ArrayBlockingQueue::size)
+                    .description("Commands waiting in the shard mailbox")
+                    .tag("shard", shardTag)
+                    .register(meterRegistry);
+            this.latency = Timer.builder("jookbox.room.commands.latency")
+                    .description("Time spent processing a room command")
+                    .tag("shard", shardTag)
+                    .register(meterRegistry);
+        }
+    }
+}
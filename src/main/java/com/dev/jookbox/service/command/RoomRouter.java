@@ -0,0 +1,30 @@
+package com.dev.jookbox.service.command;
+
+import com.dev.jookbox.domain.RoomRef;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.UUID;
+
+/**
+ * Decides which node runs a room's commands. A room's queue, command shard and auto-advance timer live on exactly
+ * one node; services check {@link #isLocal} before touching them and otherwise {@link #forward} the command.
+ */
+public interface RoomRouter {
+
+    /**
+     * Whether this node owns the room and should run its commands, claiming the room if no node does.
+     */
+    boolean isLocal(RoomRef room);
+
+    /**
+     * Whether this node still owns the room, asking the shared lease rather than trusting a local copy of it.
+     * Writes of the room's state check this last, so a node that lost the room does not overwrite its new owner.
+     */
+    boolean holdsLease(UUID roomId);
+
+    /**
+     * Runs {@code command} on the node that owns the room and returns its result, rethrowing the owner's
+     * {@code web} exceptions.
+     */
+    <T> T forward(RoomRef room, RoomCommand command, TypeReference<T> resultType);
+}
@@ -0,0 +1,21 @@
+package com.dev.jookbox.service.events;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "jookbox.broker.relay", havingValue = "local", matchIfMissing = true)
+public class LocalRoomBroadcaster implements RoomBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public LocalRoomBroadcaster(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public void send(String roomCode, RoomEventType type, String json, String eventId) {
+        messagingTemplate.send(StompFrames.destination(roomCode, type), StompFrames.json(json, eventId));
+    }
+}
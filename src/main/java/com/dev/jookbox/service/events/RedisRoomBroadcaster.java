@@ -0,0 +1,175 @@
+package com.dev.jookbox.service.events;
+
+import com.dev.jookbox.config.NodeIdentity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fans room events out to every node through Redis pub/sub, one channel per room ({@code room-events:{code}}).
+ * The sending node delivers to its own sessions directly; other nodes deliver what they receive. A node only
+ * listens on a room's channel while at least one of its sessions is subscribed to that room. Subscriptions are
+ * counted per room; the channel is subscribed on the first and unsubscribed after the last, under the room's lock
+ * and outside the map, so a slow Redis call holds up only that room.
+ * <p>
+ * Channel messages are {@code node \n type \n eventId \n json}, with an empty line for a missing event id.
+ */
+@Component
+@ConditionalOnProperty(name = "jookbox.broker.relay", havingValue = "redis")
+public class RedisRoomBroadcaster implements RoomBroadcaster, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisRoomBroadcaster.class);
+    private static final Pattern ROOM_TOPIC = Pattern.compile("^/topic/rooms/([^/]+)/");
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NodeIdentity nodeIdentity;
+    /** session id -> (subscription id -> room code) */
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    /** room code -> local subscriptions */
+    private final Map<String, RoomListener> rooms = new ConcurrentHashMap<>();
+
+    public RedisRoomBroadcaster(StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer listenerContainer,
+                                SimpMessagingTemplate messagingTemplate,
+                                NodeIdentity nodeIdentity,
+                                MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.messagingTemplate = messagingTemplate;
+        this.nodeIdentity = nodeIdentity;
+        Gauge.builder("jookbox.broker.relay.rooms", rooms, Map::size)
+                .description("Rooms this node listens to on the Redis relay")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void send(String roomCode, RoomEventType type, String json, String eventId) {
+        deliver(roomCode, type, json, eventId);
+        redisTemplate.convertAndSend(channel(roomCode), String.join("\n",
+                nodeIdentity.id(), type.topic(), eventId == null ? "" : eventId, json));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\n", 4);
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed relay message");
+            return;
+        }
+        if (parts[0].equals(nodeIdentity.id())) {
+            return;
+        }
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String roomCode = channel.substring(channel.indexOf(':') + 1);
+        deliver(roomCode, RoomEventType.fromTopic(parts[1]), parts[3], parts[2].isEmpty() ? null : parts[2]);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        Matcher matcher = ROOM_TOPIC.matcher(destination);
+        if (!matcher.find()) {
+            return;
+        }
+        String roomCode = matcher.group(1);
+        sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), roomCode);
+        acquire(roomCode);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            release(subscriptions.remove(accessor.getSubscriptionId()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    private void acquire(String roomCode) {
+        while (true) {
+            RoomListener room = rooms.computeIfAbsent(roomCode, code -> new RoomListener());
+            synchronized (room) {
+                if (room.retired) {
+                    // the last subscription went away meanwhile; start over with a fresh entry
+                    continue;
+                }
+                if (room.subscriptions++ == 0) {
+                    listenerContainer.addMessageListener(this, new ChannelTopic(channel(roomCode)));
+                }
+                return;
+            }
+        }
+    }
+
+    private void release(String roomCode) {
+        if (roomCode == null) {
+            return;
+        }
+        RoomListener room = rooms.get(roomCode);
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            if (room.retired || --room.subscriptions > 0) {
+                return;
+            }
+            room.retired = true;
+            rooms.remove(roomCode, room);
+            listenerContainer.removeMessageListener(this, new ChannelTopic(channel(roomCode)));
+        }
+    }
+
+    private void deliver(String roomCode, RoomEventType type, String json, String eventId) {
+        messagingTemplate.send(StompFrames.destination(roomCode, type), StompFrames.json(json, eventId));
+    }
+
+    private static String channel(String roomCode) {
+        return "room-events:" + roomCode;
+    }
+
+    /**
+     * Local subscriptions to one room. Guarded by its own monitor; a retired entry has been removed from
+     * {@code rooms} and must not be reused.
+     */
+    private static final class RoomListener {
+
+        private int subscriptions;
+        private boolean retired;
+    }
+}
@@ -0,0 +1,14 @@
+package com.dev.jookbox.service.events;
+
+/**
+ * Delivers a serialized room event to the STOMP subscribers of {@code /topic/rooms/{code}/{type}}. Selected with
+ * {@code jookbox.broker.relay}: {@code local} reaches only this node's sessions, {@code redis} fans out to every
+ * node through Redis pub/sub.
+ */
+public interface RoomBroadcaster {
+
+    /**
+     * @param eventId stream id for the {@code event-id} header, or {@code null} when the event was not logged
+     */
+    void send(String roomCode, RoomEventType type, String json, String eventId);
+}
@@ -0,0 +1,127 @@
+package com.dev.jookbox.service.events;
+
+import com.dev.jookbox.config.RoomEventProperties;
+import com.dev.jookbox.web.BadRequestException;
+import com.dev.jookbox.web.dto.RoomEventView;
+import com.dev.jookbox.web.dto.RoomEventsResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Broadcasts room events and keeps them in a capped Redis Stream under {@code events:{code}}. Each STOMP frame
+ * carries its stream id in the {@value #EVENT_ID_HEADER} header, so a client coming back from a disconnect can
+ * ask for everything after the last id it saw. Once that id has been trimmed, the client has to refetch
+ * snapshots instead.
+ */
+@Component
+public class RoomEventLog {
+
+    public static final String EVENT_ID_HEADER = "event-id";
+
+    private static final Logger log = LoggerFactory.getLogger(RoomEventLog.class);
+    private static final Pattern STREAM_ID = Pattern.compile("\\d+-\\d+");
+    private static final int MAX_READ = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RoomBroadcaster broadcaster;
+    private final ObjectMapper objectMapper;
+    private final RoomEventProperties properties;
+    private final RedisScript<String> appendScript =
+            RedisScript.of(new ClassPathResource("redis/event-append.lua"), String.class);
+
+    public RoomEventLog(StringRedisTemplate redisTemplate,
+                        RoomBroadcaster broadcaster,
+                        ObjectMapper objectMapper,
+                        RoomEventProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.broadcaster = broadcaster;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Appends the event to the room's stream and sends it to {@code /topic/rooms/{code}/{type}}. If Redis is
+     * unavailable the frame still goes out, just without an id.
+     */
+    public void publish(String roomCode, RoomEventType type, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize room event", e);
+        }
+        broadcaster.send(roomCode, type, json, append(roomCode, type, json));
+    }
+
+    public RoomEventsResponse readAfter(String roomCode, String afterId) {
+        if (!STREAM_ID.matcher(afterId).matches()) {
+            throw new BadRequestException("Invalid event id");
+        }
+        String key = key(roomCode);
+        List<MapRecord<String, Object, Object>> oldest =
+                redisTemplate.opsForStream().range(key, Range.unbounded(), Limit.limit().count(1));
+        if (oldest == null || oldest.isEmpty() || compare(afterId, oldest.get(0).getId()) < 0) {
+            // the client's last event is older than anything kept, so it may have missed trimmed entries
+            return new RoomEventsResponse(true, List.of());
+        }
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                .range(key, Range.rightUnbounded(Range.Bound.inclusive(afterId)), Limit.limit().count(MAX_READ + 1));
+        if (records == null) {
+            records = List.of();
+        }
+        List<RoomEventView> events = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            if (record.getId().getValue().equals(afterId)) {
+                continue;
+            }
+            if (events.size() == MAX_READ) {
+                // too far behind to replay; a snapshot is cheaper
+                return new RoomEventsResponse(true, List.of());
+            }
+            Map<Object, Object> fields = record.getValue();
+            events.add(new RoomEventView(record.getId().getValue(),
+                    String.valueOf(fields.get("type")),
+                    String.valueOf(fields.get("data"))));
+        }
+        return new RoomEventsResponse(false, events);
+    }
+
+    private String append(String roomCode, RoomEventType type, String json) {
+        try {
+            return redisTemplate.execute(appendScript, List.of(key(roomCode)),
+                    Long.toString(properties.maxLength()),
+                    Long.toString(properties.retention().toSeconds()),
+                    type.topic(),
+                    json);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to append {} event for room {}: {}", type.topic(), roomCode, ex.getMessage());
+            return null;
+        }
+    }
+
+    private static int compare(String id, RecordId other) {
+        String[] parts = id.split("-");
+        int byTime = Long.compare(Long.parseLong(parts[0]), other.getTimestamp());
+        return byTime != 0 ? byTime : Long.compare(Long.parseLong(parts[1]), other.getSequence());
+    }
+
+    private static String key(String roomCode) {
+        return "events:" + roomCode;
+    }
+}
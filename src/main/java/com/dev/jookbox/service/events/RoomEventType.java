@@ -0,0 +1,28 @@
+package com.dev.jookbox.service.events;
+
+public enum RoomEventType {
+    QUEUE("queue"),
+    PLAYBACK("playback");
+
+    private final String topic;
+
+    RoomEventType(String topic) {
+        this.topic = topic;
+    }
+
+    /**
+     * Last segment of the room topic the event is broadcast on, also used as the type in the event log.
+     */
+    public String topic() {
+        return topic;
+    }
+
+    public static RoomEventType fromTopic(String topic) {
+        for (RoomEventType type : values()) {
+            if (type.topic.equals(topic)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown room event type " + topic);
+    }
+}
@@ -0,0 +1,32 @@
+package com.dev.jookbox.service.events;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+final class StompFrames {
+
+    private StompFrames() {
+    }
+
+    static String destination(String roomCode, RoomEventType type) {
+        return "/topic/rooms/" + roomCode + "/" + type.topic();
+    }
+
+    /**
+     * Wraps already serialized JSON so the broker forwards it as is instead of running it through Jackson again.
+     */
+    static Message<byte[]> json(String json, String eventId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (eventId != null) {
+            accessor.setNativeHeader(RoomEventLog.EVENT_ID_HEADER, eventId);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,87 @@
+package com.dev.jookbox.service.membership;
+
+import com.dev.jookbox.repository.MembershipRepository;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-room member count kept in Redis under {@code room:{id}:members}. Joins take a slot with one atomic
+ * check-and-increment, so the cap holds under concurrent joins. A counter missing from Redis (new deployment,
+ * flushed cache) is seeded once from {@code memberships}. Vote thresholds read the key inside the tally script
+ * rather than through a separate lookup.
+ */
+@Component
+public class MemberCounter {
+
+    private static final long NOT_SEEDED = -1;
+
+    private final StringRedisTemplate redisTemplate;
+    private final MembershipRepository membershipRepository;
+    private final RedisScript<Long> reserveScript =
+            RedisScript.of(new ClassPathResource("redis/member-reserve.lua"), Long.class);
+    private final RedisScript<Long> releaseScript =
+            RedisScript.of(new ClassPathResource("redis/member-release.lua"), Long.class);
+
+    public MemberCounter(StringRedisTemplate redisTemplate, MembershipRepository membershipRepository) {
+        this.redisTemplate = redisTemplate;
+        this.membershipRepository = membershipRepository;
+    }
+
+    /**
+     * Starts the counter for a room that was just created with its host as the only member.
+     */
+    public void initialize(UUID roomId, long members) {
+        redisTemplate.opsForValue().set(key(roomId), Long.toString(members));
+    }
+
+    /**
+     * Takes a member slot. Returns {@code false} when the room already has {@code cap} members.
+     */
+    public boolean tryReserve(UUID roomId, long cap) {
+        List<String> keys = List.of(key(roomId));
+        long result = run(reserveScript, keys, Long.toString(cap));
+        if (result == NOT_SEEDED) {
+            seed(roomId);
+            result = run(reserveScript, keys, Long.toString(cap));
+        }
+        return result > 0;
+    }
+
+    /**
+     * Gives a slot back, on a rolled back join or when a membership is removed.
+     */
+    public void release(UUID roomId) {
+        run(releaseScript, List.of(key(roomId)));
+    }
+
+    /**
+     * Seeds a missing counter from {@code memberships}, keeping one that is already there.
+     */
+    public long seed(UUID roomId) {
+        long members = membershipRepository.countByRoomId(roomId);
+        // SETNX so a concurrent seed or reservation that got there first is kept
+        redisTemplate.opsForValue().setIfAbsent(key(roomId), Long.toString(members));
+        String value = redisTemplate.opsForValue().get(key(roomId));
+        return value == null ? members : Long.parseLong(value);
+    }
+
+    private long run(RedisScript<Long> script, List<String> keys, String... args) {
+        Long result = redisTemplate.execute(script, keys, (Object[]) args);
+        if (result == null) {
+            throw new IllegalStateException("Member counter script returned no result");
+        }
+        return result;
+    }
+
+    /**
+     * The counter's Redis key, for scripts that read the member count in the same round trip.
+     */
+    public static String key(UUID roomId) {
+        return "room:" + roomId + ":members";
+    }
+}
@@ -0,0 +1,97 @@
+package com.dev.jookbox.service.playback;
+
+import com.dev.jookbox.config.PlaybackProperties;
+import com.dev.jookbox.domain.PlaybackState;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+
+/**
+ * End-of-track timers for playing rooms, one per room on a {@link TimingWheel}. A seek or resume moves the
+ * room's existing timer instead of creating a new one; a pause cancels it. Timers live on the node that last
+ * changed the room's playback and are not persisted; {@code PlaybackService} re-arms them from the stored playback
+ * state when a node claims a room and on a periodic scan. Each timer remembers the state version it was armed for, so the callback can
+ * compare-and-set against it and a timer that outlived its state does nothing.
+ */
+@Component
+public class AutoAdvanceScheduler {
+
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Armed> timers = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+
+    public AutoAdvanceScheduler(PlaybackProperties properties, MeterRegistry meterRegistry) {
+        this.wheel = new TimingWheel(properties.advanceTick().toMillis(), properties.advanceWheelSize(),
+                dispatcher, "playback-advance");
+        Gauge.builder("jookbox.playback.advance.rooms", timers, Map::size)
+                .description("Rooms with an end-of-track timer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Arms the room's timer for the end of the current track, or moves it if one is already pending.
+     * {@code onTrackEnd} runs off the wheel thread with the version of {@code state} and should only act if the
+     * state is still at that version.
+     */
+    public void track(String roomCode, PlaybackState state, int durationSeconds, LongConsumer onTrackEnd) {
+        if (!state.isPlaying() || durationSeconds <= 0) {
+            cancel(roomCode);
+            return;
+        }
+        long deadline = endOfTrackMillis(state, durationSeconds);
+        timers.compute(roomCode, (code, armed) -> {
+            if (armed != null && armed.timeout.reschedule(deadline)) {
+                armed.version = state.getVersion();
+                return armed;
+            }
+            Armed next = new Armed(state.getVersion());
+            next.timeout = wheel.schedule(deadline, () -> {
+                // a fired timer is done; drop it unless track() has already replaced it
+                timers.remove(code, next);
+                onTrackEnd.accept(next.version);
+            });
+            return next;
+        });
+    }
+
+    public void cancel(String roomCode) {
+        Armed armed = timers.remove(roomCode);
+        if (armed != null) {
+            armed.timeout.cancel();
+        }
+    }
+
+    /**
+     * Whether the room has a timer that has not fired or been cancelled yet.
+     */
+    public boolean isTracking(String roomCode) {
+        return timers.containsKey(roomCode);
+    }
+
+    public static long endOfTrackMillis(PlaybackState state, int durationSeconds) {
+        return state.getLastUpdateTs().toEpochMilli() + durationSeconds * 1000L - state.getPositionMs();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        wheel.close();
+        dispatcher.shutdownNow();
+    }
+
+    private static final class Armed {
+
+        private volatile long version;
+        private volatile TimingWheel.Timeout timeout;
+
+        private Armed(long version) {
+            this.version = version;
+        }
+    }
+}
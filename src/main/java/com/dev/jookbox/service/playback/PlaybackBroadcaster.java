@@ -0,0 +1,153 @@
+package com.dev.jookbox.service.playback;
+
+import com.dev.jookbox.config.PlaybackProperties;
+import com.dev.jookbox.service.events.RoomEventLog;
+import com.dev.jookbox.service.events.RoomEventType;
+import com.dev.jookbox.web.dto.PlaybackStateResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends playback frames to {@code /topic/rooms/{code}/playback}, at most one per
+ * {@code jookbox.playback.broadcast-window} per room. Frames arriving inside the window replace each other and
+ * only the last one goes out when the window closes; frames that change the play/pause state or the track are
+ * sent immediately and supersede anything pending. Every frame is a full state, so dropping older ones is safe.
+ * <p>
+ * After a stopped (not playing) frame the room's window is kept until it closes, so seeks while paused are still
+ * coalesced; if nothing new came in by then the window is dropped, and only rooms that are playing or seeking keep
+ * one. Frames for a room are published from one command shard's publisher thread, so a frame racing the removal at
+ * worst opens a fresh window.
+ */
+@Component
+public class PlaybackBroadcaster {
+
+    private final RoomEventLog eventLog;
+    private final long windowMillis;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "playback-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter emitted;
+    private final Counter coalesced;
+
+    public PlaybackBroadcaster(RoomEventLog eventLog,
+                               PlaybackProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.eventLog = eventLog;
+        this.windowMillis = properties.broadcastWindow().toMillis();
+        this.emitted = Counter.builder("jookbox.playback.frames")
+                .tag("outcome", "emitted")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("jookbox.playback.frames")
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param immediate {@code true} for frames that change what is playing or whether it plays
+     */
+    public void publish(String roomCode, PlaybackStateResponse frame, boolean immediate) {
+        Window window = windows.computeIfAbsent(roomCode, Window::new);
+        synchronized (window) {
+            long now = System.currentTimeMillis();
+            if (immediate || (window.pending == null && now - window.lastEmitAt >= windowMillis)) {
+                if (window.pending != null) {
+                    coalesced.increment();
+                    window.pending = null;
+                }
+                emit(window, frame, now);
+                keepUntilWindowCloses(window);
+                return;
+            }
+            if (window.pending != null) {
+                coalesced.increment();
+            }
+            window.pending = frame;
+            if (!window.flushScheduled) {
+                window.flushScheduled = true;
+                long delay = Math.max(0, window.lastEmitAt + windowMillis - now);
+                timer.schedule(() -> flush(window), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void flush(Window window) {
+        synchronized (window) {
+            window.flushScheduled = false;
+            long now = System.currentTimeMillis();
+            if (window.pending != null) {
+                PlaybackStateResponse frame = window.pending;
+                window.pending = null;
+                emit(window, frame, now);
+                keepUntilWindowCloses(window);
+            } else if (window.stopped) {
+                long remaining = window.lastEmitAt + windowMillis - now;
+                if (remaining > 0) {
+                    // scheduled before the last stopped frame went out; wait for its window instead
+                    window.flushScheduled = true;
+                    timer.schedule(() -> flush(window), remaining, TimeUnit.MILLISECONDS);
+                } else {
+                    windows.remove(window.roomCode, window);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the room's window, e.g. when the room closes. A pending frame is discarded.
+     */
+    public void forget(String roomCode) {
+        Window window = windows.remove(roomCode);
+        if (window != null) {
+            synchronized (window) {
+                window.pending = null;
+            }
+        }
+    }
+
+    private void emit(Window window, PlaybackStateResponse frame, long now) {
+        window.lastEmitAt = now;
+        window.stopped = !frame.playing();
+        eventLog.publish(window.roomCode, RoomEventType.PLAYBACK, frame);
+        emitted.increment();
+    }
+
+    /**
+     * After a stopped frame, schedules a flush for when its window closes; that flush sends a frame that came in
+     * meanwhile or drops the window.
+     */
+    private void keepUntilWindowCloses(Window window) {
+        if (window.stopped && !window.flushScheduled) {
+            window.flushScheduled = true;
+            timer.schedule(() -> flush(window), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private static final class Window {
+
+        private final String roomCode;
+        private long lastEmitAt;
+        private PlaybackStateResponse pending;
+        private boolean flushScheduled;
+        private boolean stopped;
+
+        private Window(String roomCode) {
+            this.roomCode = roomCode;
+        }
+    }
+}
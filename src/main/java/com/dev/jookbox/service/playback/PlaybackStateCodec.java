@@ -0,0 +1,58 @@
+package com.dev.jookbox.service.playback;
+
+import com.dev.jookbox.domain.PlaybackState;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads {@link PlaybackState} from the fields of the {@code playback:{code}} hash. Values are plain decimal strings
+ * so the Lua scripts can update single fields without decoding the rest; writes pass them as script arguments.
+ */
+final class PlaybackStateCodec {
+
+    static final String ROOM = "room";
+    static final String ITEM = "item";
+    static final String POSITION = "pos";
+    static final String PLAYING = "playing";
+    static final String UPDATED = "ts";
+    static final String DURATION = "dur";
+    static final String VERSION = "ver";
+
+    private PlaybackStateCodec() {
+    }
+
+    static PlaybackState decode(Map<?, ?> fields) {
+        return PlaybackState.builder()
+                .roomId(UUID.fromString(field(fields, ROOM)))
+                .nowPlayingQueueItemId(UUID.fromString(field(fields, ITEM)))
+                .positionMs(Integer.parseInt(field(fields, POSITION)))
+                .playing("1".equals(field(fields, PLAYING)))
+                .lastUpdateTs(Instant.ofEpochMilli(Long.parseLong(field(fields, UPDATED))))
+                .durationMs(fields.containsKey(DURATION) ? Integer.parseInt(field(fields, DURATION)) : 0)
+                .version(Long.parseLong(field(fields, VERSION)))
+                .build();
+    }
+
+    /**
+     * Decodes the flat field/value list returned by {@code HGETALL} inside a script.
+     */
+    static PlaybackState decodeFlat(List<?> flat) {
+        Map<Object, Object> fields = new HashMap<>(8);
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            fields.put(flat.get(i), flat.get(i + 1));
+        }
+        return decode(fields);
+    }
+
+    private static String field(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null) {
+            throw new IllegalStateException("Playback state is missing field " + name);
+        }
+        return value.toString();
+    }
+}
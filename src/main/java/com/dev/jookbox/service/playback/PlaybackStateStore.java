@@ -0,0 +1,214 @@
+package com.dev.jookbox.service.playback;
+
+import com.dev.jookbox.config.NodeIdentity;
+import com.dev.jookbox.config.PlaybackProperties;
+import com.dev.jookbox.domain.PlaybackState;
+import com.dev.jookbox.web.ConflictException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Playback state per room, stored as a Redis hash under {@code playback:{code}}. Every write goes through a Lua
+ * script that bumps the state version, so a pause or seek is one atomic round trip and callers holding a version
+ * can compare-and-set against it. The same scripts keep {@value #PLAYING_KEY}, the set of rooms whose state is
+ * playing, so a node can find the rooms that need an end-of-track timer after a restart or a handover.
+ * <p>
+ * Reads are served from a bounded near-cache. A node that writes a state caches it and publishes
+ * {@code node room version} on {@value #INVALIDATION_CHANNEL}; other nodes drop any older copy they hold and
+ * remember the announced version, so a Redis read that was already in flight cannot put an older state back
+ * afterwards. The TTL bounds staleness if a message is lost.
+ */
+@Component
+public class PlaybackStateStore {
+
+    /**
+     * Passed as the expected version when the caller does not care which state it overwrites.
+     */
+    public static final long ANY_VERSION = -1;
+
+    static final String INVALIDATION_CHANNEL = "playback-invalidations";
+    static final String PLAYING_KEY = "playback:playing";
+
+    private static final Logger log = LoggerFactory.getLogger(PlaybackStateStore.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final NodeIdentity nodeIdentity;
+    private final Cache<String, PlaybackState> nearCache;
+    /** newest version announced by another node, per room */
+    private final Cache<String, Long> announcedVersions;
+    private final RedisScript<Long> writeScript =
+            RedisScript.of(new ClassPathResource("redis/playback-write.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> transitionScript =
+            RedisScript.of(new ClassPathResource("redis/playback-transition.lua"), List.class);
+
+    public PlaybackStateStore(StringRedisTemplate redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              NodeIdentity nodeIdentity,
+                              PlaybackProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.nodeIdentity = nodeIdentity;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(properties.nearCacheSize())
+                .expireAfterWrite(properties.nearCacheTtl())
+                .recordStats()
+                .build();
+        this.announcedVersions = Caffeine.newBuilder()
+                .maximumSize(properties.nearCacheSize())
+                .expireAfterWrite(properties.nearCacheTtl())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "playbackState");
+        listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public Optional<PlaybackState> read(String roomCode) {
+        PlaybackState cached = nearCache.getIfPresent(roomCode);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Map<Object, Object> fields;
+        try {
+            fields = redisTemplate.opsForHash().entries(key(roomCode));
+        } catch (DataAccessException e) {
+            // a JSON value left behind by an older build; the next play replaces it
+            return Optional.empty();
+        }
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        PlaybackState state = PlaybackStateCodec.decode(fields);
+        cacheIfNewer(roomCode, state);
+        return Optional.of(state);
+    }
+
+    /**
+     * Codes of the rooms whose playback state is playing.
+     */
+    public Set<String> playingRooms() {
+        Set<String> codes = redisTemplate.opsForSet().members(PLAYING_KEY);
+        return codes == null ? Set.of() : codes;
+    }
+
+    /**
+     * Drops a room from {@link #playingRooms()}, e.g. once it has closed or its state is gone.
+     */
+    public void forgetPlaying(String roomCode) {
+        redisTemplate.opsForSet().remove(PLAYING_KEY, roomCode);
+    }
+
+    /**
+     * Replaces the state of a room and returns it with the version it was stored under.
+     */
+    public PlaybackState write(String roomCode, PlaybackState state) {
+        return write(roomCode, state, ANY_VERSION);
+    }
+
+    /**
+     * Replaces the state of a room if it is still at {@code expectedVersion}; throws {@link ConflictException}
+     * otherwise.
+     */
+    public PlaybackState write(String roomCode, PlaybackState state, long expectedVersion) {
+        Long version = redisTemplate.execute(writeScript, List.of(key(roomCode), PLAYING_KEY),
+                state.getRoomId().toString(),
+                state.getNowPlayingQueueItemId().toString(),
+                Integer.toString(state.getPositionMs()),
+                state.isPlaying() ? "1" : "0",
+                Long.toString(state.getLastUpdateTs().toEpochMilli()),
+                Integer.toString(state.getDurationMs()),
+                expectedVersion == ANY_VERSION ? "" : Long.toString(expectedVersion),
+                roomCode);
+        if (version == null) {
+            throw new IllegalStateException("Playback write script returned no result");
+        }
+        if (version < 0) {
+            throw new ConflictException("Playback state changed since version " + expectedVersion);
+        }
+        return stored(roomCode, state.toBuilder().version(version).build());
+    }
+
+    public Optional<PlaybackState> pause(String roomCode, long expectedVersion, Instant at) {
+        return transition(roomCode, expectedVersion, "pause", 0, at);
+    }
+
+    public Optional<PlaybackState> seek(String roomCode, long expectedVersion, int positionMs, Instant at) {
+        return transition(roomCode, expectedVersion, "seek", positionMs, at);
+    }
+
+    private Optional<PlaybackState> transition(String roomCode, long expectedVersion, String operation,
+                                               int positionMs, Instant at) {
+        List<?> result = redisTemplate.execute(transitionScript, List.of(key(roomCode), PLAYING_KEY),
+                expectedVersion == ANY_VERSION ? "" : Long.toString(expectedVersion),
+                operation,
+                Integer.toString(positionMs),
+                Long.toString(at.toEpochMilli()),
+                roomCode);
+        if (result == null || result.isEmpty()) {
+            return Optional.empty();
+        }
+        if ("conflict".equals(result.get(0))) {
+            throw new ConflictException("Playback state changed; current version is " + result.get(1));
+        }
+        return Optional.of(stored(roomCode, PlaybackStateCodec.decodeFlat(result)));
+    }
+
+    private PlaybackState stored(String roomCode, PlaybackState state) {
+        cacheIfNewer(roomCode, state);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                nodeIdentity.id() + " " + roomCode + " " + state.getVersion());
+        return state;
+    }
+
+    /**
+     * Caches {@code state} unless a newer one is cached or has been announced. Runs under the near-cache's lock for
+     * the room, like {@link #onInvalidation}, so the two cannot interleave.
+     */
+    private void cacheIfNewer(String roomCode, PlaybackState state) {
+        nearCache.asMap().compute(roomCode, (code, current) -> {
+            Long announced = announcedVersions.getIfPresent(code);
+            if (announced != null && state.getVersion() < announced) {
+                return current;
+            }
+            return current == null || state.getVersion() > current.getVersion() ? state : current;
+        });
+    }
+
+    private void onInvalidation(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ");
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed playback invalidation");
+            return;
+        }
+        if (parts[0].equals(nodeIdentity.id())) {
+            return;
+        }
+        long version = Long.parseLong(parts[2]);
+        nearCache.asMap().compute(parts[1], (roomCode, current) -> {
+            announcedVersions.asMap().merge(roomCode, version, Math::max);
+            return current != null && current.getVersion() < version ? null : current;
+        });
+    }
+
+    private static String key(String roomCode) {
+        return "playback:" + roomCode;
+    }
+}
@@ -0,0 +1,205 @@
+package com.dev.jookbox.service.playback;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timing wheel: timers land in one of {@code wheelSize} buckets by deadline, and a single thread visits
+ * one bucket per tick. Scheduling, rescheduling and cancelling are O(1) list splices; a timer further out than one
+ * revolution carries a round count that is decremented on each visit. Deadlines are epoch milliseconds and fire
+ * up to one tick late. Expired tasks are handed to {@code dispatcher} so a slow task never delays the wheel.
+ */
+final class TimingWheel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    private final long tickMillis;
+    private final int mask;
+    private final Bucket[] buckets;
+    private final Executor dispatcher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Thread worker;
+    private final long startMillis;
+    private long currentTick;
+    private volatile boolean running = true;
+
+    TimingWheel(long tickMillis, int wheelSize, Executor dispatcher, String threadName) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.dispatcher = dispatcher;
+        this.startMillis = System.currentTimeMillis();
+        this.worker = Thread.ofPlatform().name(threadName).daemon().start(this::run);
+    }
+
+    Timeout schedule(long deadlineMillis, Runnable task) {
+        Timeout timeout = new Timeout(task);
+        lock.lock();
+        try {
+            place(timeout, deadlineMillis);
+        } finally {
+            lock.unlock();
+        }
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void place(Timeout timeout, long deadlineMillis) {
+        long targetTick = Math.max(Math.ceilDiv(deadlineMillis - startMillis, tickMillis), currentTick);
+        timeout.deadlineMillis = deadlineMillis;
+        timeout.rounds = (targetTick - currentTick) / buckets.length;
+        buckets[(int) (targetTick & mask)].add(timeout);
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickAt = startMillis + (currentTick + 1) * tickMillis;
+            long sleep = nextTickAt - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            List<Timeout> expired = new ArrayList<>();
+            lock.lock();
+            try {
+                buckets[(int) (currentTick & mask)].expire(expired);
+                currentTick++;
+            } finally {
+                lock.unlock();
+            }
+            for (Timeout timeout : expired) {
+                try {
+                    dispatcher.execute(timeout.task);
+                } catch (RuntimeException ex) {
+                    log.warn("Failed to dispatch timer task: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    final class Timeout {
+
+        private final Runnable task;
+        private long deadlineMillis;
+        private long rounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * Moves the timer to a new deadline, keeping its task. Returns {@code false} if it already fired or was
+         * cancelled, in which case the caller has to schedule a new one.
+         */
+        boolean reschedule(long newDeadlineMillis) {
+            lock.lock();
+            try {
+                if (bucket == null) {
+                    return false;
+                }
+                bucket.remove(this);
+                place(this, newDeadlineMillis);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean cancel() {
+            lock.lock();
+            try {
+                if (bucket == null) {
+                    return false;
+                }
+                bucket.remove(this);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long deadlineMillis() {
+            lock.lock();
+            try {
+                return deadlineMillis;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list of timers; only touched while holding the wheel lock.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        void expire(List<Timeout> expired) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    expired.add(timeout);
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.dev.jookbox.service.queue;
+
+import java.util.List;
+
+/**
+ * Queue rows to write in one flush. {@code baseRevision} is the room's {@code queue_revision} in Postgres when the
+ * changes were drained; the flush only applies them if the column still holds it.
+ */
+record QueueChanges(
+        long baseRevision,
+        long revision,
+        List<QueueEntry> inserts,
+        List<QueueEntry> updates
+) {
+
+    static final QueueChanges NONE = new QueueChanges(0, 0, List.of(), List.of());
+
+    boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty();
+    }
+}
@@ -0,0 +1,22 @@
+package com.dev.jookbox.service.queue;
+
+import com.dev.jookbox.domain.QueueOperationType;
+
+import java.util.List;
+
+/**
+ * Ordered operations produced by one {@link RoomQueue} mutation, tagged with the queue revision they lead to.
+ * Indexes are dense positions as seen by clients after the operation is applied.
+ */
+public record QueueDelta(
+        long revision,
+        List<Operation> operations
+) {
+
+    public record Operation(
+            QueueOperationType type,
+            QueueEntry entry,
+            int index
+    ) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.dev.jookbox.service.queue;
+
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.repository.QueueItemRow;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record QueueEntry(
+        UUID id,
+        UUID roomId,
+        String videoId,
+        String title,
+        int durationSeconds,
+        String thumbUrl,
+        UUID addedById,
+        String addedByName,
+        QueueItemStatus status,
+        int position,
+        OffsetDateTime enqueuedAt
+) {
+
+    public static QueueEntry from(QueueItemRow row) {
+        return new QueueEntry(
+                row.id(),
+                row.roomId(),
+                row.videoId(),
+                row.title(),
+                row.durationSeconds(),
+                row.thumbUrl(),
+                row.addedById(),
+                row.addedByName(),
+                row.status(),
+                row.position(),
+                row.enqueuedAt()
+        );
+    }
+
+    public boolean isActive() {
+        return status == QueueItemStatus.QUEUED || status == QueueItemStatus.PLAYING;
+    }
+
+    QueueEntry withPosition(int newPosition) {
+        return new QueueEntry(id, roomId, videoId, title, durationSeconds, thumbUrl,
+                addedById, addedByName, status, newPosition, enqueuedAt);
+    }
+
+    QueueEntry withStatus(QueueItemStatus newStatus, int newPosition) {
+        return new QueueEntry(id, roomId, videoId, title, durationSeconds, thumbUrl,
+                addedById, addedByName, newStatus, newPosition, enqueuedAt);
+    }
+}
@@ -0,0 +1,263 @@
+package com.dev.jookbox.service.queue;
+
+import com.dev.jookbox.config.QueueProperties;
+import com.dev.jookbox.domain.QueueItem;
+import com.dev.jookbox.domain.Room;
+import com.dev.jookbox.domain.RoomStatus;
+import com.dev.jookbox.repository.QueueItemRepository;
+import com.dev.jookbox.repository.RoomRepository;
+import com.dev.jookbox.repository.UserRepository;
+import com.dev.jookbox.service.command.RoomRouter;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind for {@link RoomQueue}: drains each room's pending changes on a fixed delay and writes them to
+ * {@code queue_items} in a single transaction per room, together with the room's queue revision.
+ * <p>
+ * Each flush first moves {@code rooms.queue_revision} from the revision its changes were built on to theirs, with
+ * a conditional update, and rows are version-checked as well. If the revision has moved on or a row changed,
+ * someone else wrote the room since this node loaded it, so this node's view is stale: its changes are dropped and
+ * the queue is reloaded from Postgres on next use. The same happens when another node owns the room now (see
+ * {@link RoomRouter#holdsLease}). The lease is checked after the revision update has locked the room row, so a new
+ * owner that loaded the room before this flush commits fails its own revision check instead of losing these
+ * rows.
+ * <p>
+ * A transient failure (Postgres unreachable, a lost connection, a timeout) hands the batch back to the queue and
+ * the room is retried with exponential backoff up to {@code jookbox.queue.max-flush-backoff}, for as long as it
+ * takes: these changes were already acknowledged to clients. Once a room has been failing for longer than
+ * {@code jookbox.queue.max-backlog-age} its queue refuses new mutations with 503 until a flush succeeds. Any other
+ * failure will not go away by waiting, so it is retried at most {@code jookbox.queue.max-flush-attempts} times in a
+ * row before the changes are dropped the same way as a conflict. Queues of deleted or closed rooms, and queues left
+ * unused for {@code jookbox.queue.idle-timeout} with nothing to write, are evicted from memory.
+ */
+@Component
+public class QueueFlusher {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueFlusher.class);
+
+    private static final long BASE_BACKOFF_MILLIS = 500;
+
+    private record Failures(int attempts, long firstFailureMillis, long nextAttemptMillis) {
+    }
+
+    private final RoomQueueStore queueStore;
+    private final QueueItemRepository queueItemRepository;
+    private final RoomRepository roomRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate writeTransaction;
+    private final QueueProperties properties;
+    private final RoomRouter router;
+    private final Map<UUID, Failures> failures = new ConcurrentHashMap<>();
+
+    public QueueFlusher(RoomQueueStore queueStore,
+                        QueueItemRepository queueItemRepository,
+                        RoomRepository roomRepository,
+                        UserRepository userRepository,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        QueueProperties properties,
+                        RoomRouter router) {
+        this.queueStore = queueStore;
+        this.queueItemRepository = queueItemRepository;
+        this.roomRepository = roomRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.router = router;
+    }
+
+    @Scheduled(fixedDelayString = "${jookbox.queue.flush-interval-ms:500}")
+    public void flushAll() {
+        long now = System.currentTimeMillis();
+        for (RoomQueue queue : queueStore.loaded()) {
+            Failures failed = failures.get(queue.getRoomId());
+            if (failed == null || failed.nextAttemptMillis() <= now) {
+                flush(queue);
+            }
+        }
+        int evicted = queueStore.evictIdle(System.currentTimeMillis() - properties.idleTimeout().toMillis());
+        if (evicted > 0) {
+            log.debug("Evicted {} idle room queues", evicted);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        // one last attempt for every room, backing off or not
+        for (RoomQueue queue : queueStore.loaded()) {
+            flush(queue);
+        }
+    }
+
+    public void flush(RoomQueue queue) {
+        QueueChanges changes = queue.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        UUID roomId = queue.getRoomId();
+        RoomStatus status;
+        try {
+            status = writeTransaction.execute(tx -> write(roomId, changes));
+        } catch (RoomMovedException ex) {
+            failures.remove(roomId);
+            log.warn("Room {} is owned by another node now; dropping its changes up to revision {}",
+                    roomId, changes.revision());
+            queueStore.discard(queue);
+            return;
+        } catch (OptimisticLockingFailureException ex) {
+            failures.remove(roomId);
+            log.warn("Queue rows of room {} were changed elsewhere; dropping changes up to revision {} and reloading: {}",
+                    roomId, changes.revision(), ex.getMessage());
+            queueStore.discard(queue);
+            return;
+        } catch (RuntimeException ex) {
+            retryOrDiscard(queue, changes, ex);
+            return;
+        }
+        failures.remove(roomId);
+        if (status == null) {
+            log.warn("Room {} no longer exists, dropping its queue", roomId);
+            queueStore.discard(queue);
+            return;
+        }
+        queue.flushed(changes);
+        if (status != RoomStatus.ACTIVE) {
+            queueStore.evict(queue);
+        }
+    }
+
+    private void retryOrDiscard(RoomQueue queue, QueueChanges changes, RuntimeException ex) {
+        UUID roomId = queue.getRoomId();
+        long now = System.currentTimeMillis();
+        Failures previous = failures.get(roomId);
+        int attempts = previous == null ? 1 : previous.attempts() + 1;
+        long firstFailure = previous == null ? now : previous.firstFailureMillis();
+        if (isTransient(ex)) {
+            long backoff = Math.min(BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 16),
+                    properties.maxFlushBackoff().toMillis());
+            failures.put(roomId, new Failures(attempts, firstFailure, now + backoff));
+            queue.restore(changes);
+            if (now - firstFailure >= properties.maxBacklogAge().toMillis()) {
+                queue.refuseWrites();
+            }
+            log.warn("Could not reach the database to flush queue for room {} (attempt {}), retrying in {} ms: {}",
+                    roomId, attempts, backoff, ex.getMessage());
+            return;
+        }
+        if (attempts < properties.maxFlushAttempts()) {
+            failures.put(roomId, new Failures(attempts, firstFailure, now));
+            log.warn("Failed to flush queue for room {} (attempt {}), retrying on next tick: {}",
+                    roomId, attempts, ex.getMessage());
+            queue.restore(changes);
+            return;
+        }
+        failures.remove(roomId);
+        log.error("Dropping queue changes up to revision {} for room {} after {} failed flushes; reloading from the database",
+                changes.revision(), roomId, attempts, ex);
+        queueStore.discard(queue);
+    }
+
+    /**
+     * Whether the failure is about reaching Postgres rather than about the data, so waiting can fix it.
+     */
+    static boolean isTransient(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            // connection exceptions (08xxx) and server shutdown or restart (57P0x)
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("57P0"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the room's status, or {@code null} when the room is gone and nothing was written.
+     */
+    private RoomStatus write(UUID roomId, QueueChanges changes) {
+        if (roomRepository.advanceQueueRevision(roomId, changes.baseRevision(), changes.revision()) == 0) {
+            if (!roomRepository.existsById(roomId)) {
+                return null;
+            }
+            throw new OptimisticLockingFailureException("Queue revision of room " + roomId
+                    + " is no longer " + changes.baseRevision());
+        }
+        if (!router.holdsLease(roomId)) {
+            throw new RoomMovedException();
+        }
+        Room room = roomRepository.getReferenceById(roomId);
+        for (QueueEntry entry : changes.inserts()) {
+            entityManager.persist(QueueItem.builder()
+                    .id(entry.id())
+                    .room(room)
+                    .position(entry.position())
+                    .videoId(entry.videoId())
+                    .title(entry.title())
+                    .durationSeconds(entry.durationSeconds())
+                    .thumbUrl(entry.thumbUrl())
+                    .addedBy(userRepository.getReferenceById(entry.addedById()))
+                    .status(entry.status())
+                    .enqueuedAt(entry.enqueuedAt())
+                    .build());
+        }
+        if (!changes.updates().isEmpty()) {
+            Map<UUID, QueueEntry> updates = changes.updates().stream()
+                    .collect(Collectors.toMap(QueueEntry::id, Function.identity()));
+            List<QueueItem> items = queueItemRepository.findAllById(updates.keySet());
+            if (items.size() != updates.size()) {
+                throw new IllegalStateException((updates.size() - items.size()) + " of " + updates.size()
+                        + " updated queue items are missing from queue_items");
+            }
+            for (QueueItem item : items) {
+                QueueEntry entry = updates.get(item.getId());
+                item.setPosition(entry.position());
+                item.setStatus(entry.status());
+            }
+        }
+        return room.getStatus();
+    }
+
+    /**
+     * Thrown inside the write transaction to roll it back when this node no longer owns the room.
+     */
+    private static final class RoomMovedException extends RuntimeException {
+
+        private RoomMovedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.dev.jookbox.service.queue;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-spreads the ranks of rooms whose gaps have been worn down by repeated moves into the same slot, so that
+ * {@link RoomQueue#move} rarely has to rebalance inline. The rewritten ranks go out with the next flush.
+ */
+@Component
+public class QueueRebalancer {
+
+    private final RoomQueueStore queueStore;
+
+    public QueueRebalancer(RoomQueueStore queueStore) {
+        this.queueStore = queueStore;
+    }
+
+    @Scheduled(fixedDelayString = "${jookbox.queue.rebalance-interval-ms:60000}")
+    public void rebalance() {
+        for (RoomQueue queue : queueStore.loaded()) {
+            if (queue.needsRebalance()) {
+                queue.rebalance();
+            }
+        }
+    }
+}
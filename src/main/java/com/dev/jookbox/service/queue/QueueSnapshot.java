@@ -0,0 +1,9 @@
+package com.dev.jookbox.service.queue;
+
+import java.util.List;
+
+public record QueueSnapshot(
+        long revision,
+        List<QueueEntry> items
+) {
+}
@@ -0,0 +1,300 @@
+package com.dev.jookbox.service.queue;
+
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.domain.QueueOperationType;
+import com.dev.jookbox.web.ConflictException;
+import com.dev.jookbox.web.ResourceNotFoundException;
+import com.dev.jookbox.web.RoomBusyException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Authoritative in-memory queue of a single room. Holds the active (QUEUED/PLAYING) items in order and
+ * tracks which rows still need to be written to {@code queue_items} by {@link QueueFlusher}.
+ * <p>
+ * {@link QueueEntry#position()} is a sparse rank: items are spaced {@link #RANK_GAP} apart so that a move only
+ * re-ranks the moved item and a removal only touches the removed one. Clients see dense indexes instead.
+ * <p>
+ * Every mutation bumps the queue revision and returns the {@link QueueDelta} that leads to it; rebalancing
+ * does not change the visible order and leaves the revision alone. The last {@value #HISTORY_SIZE} deltas are
+ * kept so that a client acting on a slightly stale revision can be let through when nothing it touches changed.
+ * <p>
+ * The queue also remembers the revision Postgres last confirmed for it, which every drained batch of changes
+ * carries as its base. While {@link QueueFlusher} cannot reach Postgres for too long the queue refuses new
+ * mutations, so the unsaved backlog stops growing; the first successful flush lifts that.
+ */
+public class RoomQueue {
+
+    static final int RANK_GAP = 1024;
+    private static final int MIN_GAP = 8;
+    private static final int HISTORY_SIZE = 64;
+
+    private final UUID roomId;
+    private final List<QueueEntry> items;
+    private final Map<UUID, QueueEntry> pending = new LinkedHashMap<>();
+    private final Set<UUID> unsaved = new HashSet<>();
+    private final Deque<QueueDelta> history = new ArrayDeque<>();
+    private long revision;
+    private long persistedRevision;
+    private boolean refusingWrites;
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+
+    RoomQueue(UUID roomId, long revision, List<QueueEntry> items) {
+        this(roomId, revision, revision, items);
+    }
+
+    RoomQueue(UUID roomId, long persistedRevision, long revision, List<QueueEntry> items) {
+        this.roomId = roomId;
+        this.persistedRevision = persistedRevision;
+        this.revision = revision;
+        this.items = new ArrayList<>(items);
+    }
+
+    public UUID getRoomId() {
+        return roomId;
+    }
+
+    RoomQueue touch() {
+        lastAccessMillis = System.currentTimeMillis();
+        return this;
+    }
+
+    /**
+     * Whether the queue has not been handed out since {@code cutoffMillis} and has nothing left to flush.
+     */
+    synchronized boolean isIdleSince(long cutoffMillis) {
+        return lastAccessMillis < cutoffMillis && pending.isEmpty();
+    }
+
+    public synchronized QueueSnapshot snapshot() {
+        return new QueueSnapshot(revision, List.copyOf(items));
+    }
+
+    public synchronized long revision() {
+        return revision;
+    }
+
+    public synchronized Optional<QueueEntry> find(UUID itemId) {
+        int index = indexOf(itemId);
+        return index < 0 ? Optional.empty() : Optional.of(items.get(index));
+    }
+
+    public synchronized int indexOf(UUID itemId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).id().equals(itemId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rejects an operation on {@code itemId} issued against {@code expectedRevision} if any later delta touched
+     * that item, or if the revision is too old to tell.
+     */
+    public synchronized void verifyUnchangedSince(long expectedRevision, UUID itemId) {
+        if (expectedRevision == revision) {
+            return;
+        }
+        if (expectedRevision > revision) {
+            throw new ConflictException("Unknown queue revision " + expectedRevision);
+        }
+        QueueDelta oldest = history.peekFirst();
+        if (oldest == null || oldest.revision() > expectedRevision + 1) {
+            throw new ConflictException("Queue changed too much since revision " + expectedRevision);
+        }
+        for (QueueDelta delta : history) {
+            if (delta.revision() <= expectedRevision) {
+                continue;
+            }
+            for (QueueDelta.Operation operation : delta.operations()) {
+                if (operation.entry().id().equals(itemId)) {
+                    throw new ConflictException("Item was changed at revision " + delta.revision());
+                }
+            }
+        }
+    }
+
+    public synchronized QueueDelta append(QueueEntry entry) {
+        requireWritable();
+        return commit(List.of(insert(entry)));
+    }
+
+    public synchronized QueueDelta appendAll(List<QueueEntry> entries) {
+        requireWritable();
+        List<QueueDelta.Operation> operations = new ArrayList<>(entries.size());
+        for (QueueEntry entry : entries) {
+            operations.add(insert(entry));
+        }
+        return commit(operations);
+    }
+
+    public synchronized QueueDelta move(UUID itemId, int newPosition) {
+        requireWritable();
+        int currentIndex = indexOf(itemId);
+        if (currentIndex < 0) {
+            throw new ResourceNotFoundException("Item not found in queue");
+        }
+        QueueEntry target = items.remove(currentIndex);
+        int newIndex = Math.min(newPosition, items.size());
+        long lower = newIndex > 0 ? items.get(newIndex - 1).position() : 0;
+        long upper = newIndex < items.size() ? items.get(newIndex).position() : lower + 2L * RANK_GAP;
+        long rank = lower + (upper - lower) / 2;
+        if (rank <= lower || rank >= upper || rank > Integer.MAX_VALUE) {
+            items.add(newIndex, target);
+            rebalance();
+        } else {
+            QueueEntry moved = target.withPosition((int) rank);
+            items.add(newIndex, moved);
+            pending.put(moved.id(), moved);
+        }
+        return commit(List.of(new QueueDelta.Operation(QueueOperationType.MOVE, items.get(newIndex), newIndex)));
+    }
+
+    public synchronized QueueDelta retire(UUID itemId, QueueItemStatus status) {
+        requireWritable();
+        int index = indexOf(itemId);
+        if (index < 0) {
+            throw new ResourceNotFoundException("Queue item not found");
+        }
+        QueueEntry retired = items.remove(index).withStatus(status, -1);
+        pending.put(retired.id(), retired);
+        return commit(List.of(new QueueDelta.Operation(QueueOperationType.REMOVE, retired, index)));
+    }
+
+    /**
+     * Marks {@code itemId} PLAYING and puts any other item still marked PLAYING back to QUEUED, in one delta.
+     */
+    public synchronized QueueDelta markPlaying(UUID itemId) {
+        requireWritable();
+        int index = indexOf(itemId);
+        if (index < 0) {
+            throw new ResourceNotFoundException("Queue item not found");
+        }
+        List<QueueDelta.Operation> operations = new ArrayList<>(2);
+        for (int i = 0; i < items.size(); i++) {
+            QueueEntry entry = items.get(i);
+            if (i != index && entry.status() == QueueItemStatus.PLAYING) {
+                operations.add(setStatus(i, QueueItemStatus.QUEUED));
+            }
+        }
+        operations.add(setStatus(index, QueueItemStatus.PLAYING));
+        return commit(operations);
+    }
+
+    synchronized boolean needsRebalance() {
+        long previous = 0;
+        for (QueueEntry entry : items) {
+            if (entry.position() - previous < MIN_GAP) {
+                return true;
+            }
+            previous = entry.position();
+        }
+        return previous > Integer.MAX_VALUE - (long) MIN_GAP * RANK_GAP;
+    }
+
+    /**
+     * Spreads all ranks back out to {@link #RANK_GAP} multiples. Only entries whose rank actually changes are
+     * queued for the next flush.
+     */
+    synchronized void rebalance() {
+        for (int i = 0; i < items.size(); i++) {
+            QueueEntry entry = items.get(i);
+            int rank = (i + 1) * RANK_GAP;
+            if (entry.position() != rank) {
+                QueueEntry reranked = entry.withPosition(rank);
+                items.set(i, reranked);
+                pending.put(reranked.id(), reranked);
+            }
+        }
+    }
+
+    private QueueDelta.Operation insert(QueueEntry entry) {
+        long rank = items.isEmpty() ? RANK_GAP : (long) items.get(items.size() - 1).position() + RANK_GAP;
+        if (rank > Integer.MAX_VALUE) {
+            rebalance();
+            rank = (long) (items.size() + 1) * RANK_GAP;
+        }
+        QueueEntry positioned = entry.withPosition((int) rank);
+        items.add(positioned);
+        unsaved.add(positioned.id());
+        pending.put(positioned.id(), positioned);
+        return new QueueDelta.Operation(QueueOperationType.INSERT, positioned, items.size() - 1);
+    }
+
+    private QueueDelta.Operation setStatus(int index, QueueItemStatus status) {
+        QueueEntry entry = items.get(index);
+        QueueEntry updated = entry.withStatus(status, entry.position());
+        items.set(index, updated);
+        pending.put(updated.id(), updated);
+        return new QueueDelta.Operation(QueueOperationType.STATUS, updated, index);
+    }
+
+    private void requireWritable() {
+        if (refusingWrites) {
+            throw new RoomBusyException("Queue changes cannot be saved right now, try again shortly");
+        }
+    }
+
+    private QueueDelta commit(List<QueueDelta.Operation> operations) {
+        revision++;
+        QueueDelta delta = new QueueDelta(revision, operations);
+        history.addLast(delta);
+        if (history.size() > HISTORY_SIZE) {
+            history.removeFirst();
+        }
+        return delta;
+    }
+
+    synchronized QueueChanges drainChanges() {
+        if (pending.isEmpty()) {
+            return QueueChanges.NONE;
+        }
+        List<QueueEntry> inserts = new ArrayList<>();
+        List<QueueEntry> updates = new ArrayList<>();
+        for (QueueEntry entry : pending.values()) {
+            if (unsaved.contains(entry.id())) {
+                inserts.add(entry);
+            } else {
+                updates.add(entry);
+            }
+        }
+        pending.clear();
+        unsaved.clear();
+        return new QueueChanges(persistedRevision, revision, inserts, updates);
+    }
+
+    /**
+     * Records that {@code changes} reached Postgres, so the next drain builds on their revision.
+     */
+    synchronized void flushed(QueueChanges changes) {
+        persistedRevision = Math.max(persistedRevision, changes.revision());
+        refusingWrites = false;
+    }
+
+    /**
+     * Stops accepting mutations until the next successful flush.
+     */
+    synchronized void refuseWrites() {
+        refusingWrites = true;
+    }
+
+    synchronized void restore(QueueChanges changes) {
+        for (QueueEntry entry : changes.inserts()) {
+            pending.putIfAbsent(entry.id(), entry);
+            unsaved.add(entry.id());
+        }
+        for (QueueEntry entry : changes.updates()) {
+            pending.putIfAbsent(entry.id(), entry);
+        }
+    }
+}
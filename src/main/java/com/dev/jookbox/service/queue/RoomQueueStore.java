@@ -0,0 +1,116 @@
+package com.dev.jookbox.service.queue;
+
+import com.dev.jookbox.repository.QueueItemRepository;
+import com.dev.jookbox.repository.RoomRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local registry of {@link RoomQueue}s keyed by room id. A room's queue is rebuilt from Postgres the
+ * first time it is touched after a (cold) start or an eviction and served from memory afterwards.
+ * <p>
+ * A queue discarded with changes that never reached the database comes back one revision past the one it was
+ * discarded at, so clients see a gap and refetch instead of ignoring the next delta as one they already have.
+ */
+@Component
+public class RoomQueueStore {
+
+    private final QueueItemRepository queueItemRepository;
+    private final RoomRepository roomRepository;
+    private final TransactionTemplate readTransaction;
+    private final Map<UUID, RoomQueue> queues = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> discardedRevisions = new ConcurrentHashMap<>();
+
+    public RoomQueueStore(QueueItemRepository queueItemRepository,
+                          RoomRepository roomRepository,
+                          PlatformTransactionManager transactionManager) {
+        this.queueItemRepository = queueItemRepository;
+        this.roomRepository = roomRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public RoomQueue forRoom(UUID roomId) {
+        // touching inside computeIfPresent orders it against evictIdle for the same room
+        RoomQueue queue = queues.computeIfPresent(roomId, (id, loaded) -> loaded.touch());
+        if (queue != null) {
+            return queue;
+        }
+        // load outside the map so the query does not hold the map's bin lock
+        RoomQueue loaded = load(roomId);
+        RoomQueue raced = queues.putIfAbsent(roomId, loaded);
+        return raced != null ? raced.touch() : loaded;
+    }
+
+    Collection<RoomQueue> loaded() {
+        return queues.values();
+    }
+
+    public boolean isLoaded(UUID roomId) {
+        return queues.containsKey(roomId);
+    }
+
+    /**
+     * Forgets a room that another node has taken over. Changes not yet flushed are lost; the new owner works from
+     * what Postgres has, and a flush already under way for this node's copy fails its lease check.
+     */
+    public void drop(UUID roomId) {
+        RoomQueue queue = queues.get(roomId);
+        if (queue != null) {
+            discard(queue);
+        }
+    }
+
+    /**
+     * Drops a queue whose changes are all in Postgres; the next {@link #forRoom} reloads it.
+     */
+    void evict(RoomQueue queue) {
+        queues.remove(queue.getRoomId(), queue);
+    }
+
+    /**
+     * Drops the queue together with changes that could not be written; the next {@link #forRoom} reloads what
+     * Postgres has.
+     */
+    void discard(RoomQueue queue) {
+        if (queues.remove(queue.getRoomId(), queue)) {
+            discardedRevisions.merge(queue.getRoomId(), queue.revision(), Math::max);
+        }
+    }
+
+    /**
+     * Drops queues that have been fully flushed and not used since {@code cutoffMillis}.
+     */
+    int evictIdle(long cutoffMillis) {
+        int evicted = 0;
+        for (UUID roomId : queues.keySet()) {
+            if (queues.computeIfPresent(roomId, (id, queue) -> queue.isIdleSince(cutoffMillis) ? null : queue) == null) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private RoomQueue load(UUID roomId) {
+        Long discardedRevision = discardedRevisions.remove(roomId);
+        return readTransaction.execute(status -> {
+            long persistedRevision = roomRepository.findQueueRevisionById(roomId)
+                    .orElseThrow(() -> new IllegalStateException("Room " + roomId + " not found"));
+            long revision = persistedRevision;
+            if (discardedRevision != null && discardedRevision >= revision) {
+                revision = discardedRevision + 1;
+            }
+            List<QueueEntry> entries = queueItemRepository.findActiveRowsByRoomId(roomId).stream()
+                    .map(QueueEntry::from)
+                    .toList();
+            return new RoomQueue(roomId, persistedRevision, revision, entries);
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.dev.jookbox.service.room;
+
+import com.dev.jookbox.config.RoomProperties;
+import com.dev.jookbox.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Room codes that are known to be free, kept in the Redis set {@value #POOL_KEY} and shared by all nodes.
+ * Creating a room pops one code instead of probing Postgres until a random code misses. A background task tops the
+ * pool up in batches, checking each batch against {@code rooms} with a single query. A popped code is leased in
+ * {@value #LEASED_KEY} for {@code jookbox.rooms.code-lease} so that a refill running before the new room commits
+ * cannot put it back.
+ */
+@Component
+public class RoomCodePool {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomCodePool.class);
+
+    static final String POOL_KEY = "room-codes:pool";
+    static final String LEASED_KEY = "room-codes:leased";
+    private static final List<String> KEYS = List.of(POOL_KEY, LEASED_KEY);
+    private static final int MAX_REFILLS = 8;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RoomRepository roomRepository;
+    private final RoomProperties properties;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final RedisScript<String> takeScript =
+            RedisScript.of(new ClassPathResource("redis/code-take.lua"), String.class);
+    private final RedisScript<Long> refillScript =
+            RedisScript.of(new ClassPathResource("redis/code-refill.lua"), Long.class);
+    private final RedisScript<Long> releaseScript =
+            RedisScript.of(new ClassPathResource("redis/code-release.lua"), Long.class);
+
+    public RoomCodePool(StringRedisTemplate redisTemplate,
+                        RoomRepository roomRepository,
+                        RoomProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.roomRepository = roomRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Takes a free code. Refills inline when the pool has run dry; fails only when repeated batches find no free
+     * code, which means the code space is close to exhausted.
+     */
+    public String take() {
+        String code = lease();
+        for (int refills = 0; code == null && refills < MAX_REFILLS; refills++) {
+            refill();
+            code = lease();
+        }
+        if (code == null) {
+            throw new IllegalStateException("No free room code found after " + MAX_REFILLS + " refills");
+        }
+        return code;
+    }
+
+    /**
+     * Gives back a code whose room was never created, e.g. on a rolled back {@code createRoom}.
+     */
+    public void release(String code) {
+        redisTemplate.execute(releaseScript, KEYS, code);
+    }
+
+    @Scheduled(fixedDelayString = "${jookbox.rooms.code-pool-refill-interval-ms:5000}")
+    public void topUp() {
+        try {
+            Long size = redisTemplate.opsForSet().size(POOL_KEY);
+            if (size != null && size < properties.codePoolSize() / 2) {
+                int added = refill();
+                log.debug("Added {} room codes to a pool of {}", added, size);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Failed to refill room code pool: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Draws one batch of random codes, drops those already used by a room and adds the rest to the pool.
+     * Returns how many codes were new to the pool.
+     */
+    int refill() {
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i < properties.codePoolBatch(); i++) {
+            candidates.add(randomCode());
+        }
+        roomRepository.findExistingCodes(candidates).forEach(candidates::remove);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Long added = redisTemplate.execute(refillScript, KEYS, candidates.toArray());
+        return added == null ? 0 : added.intValue();
+    }
+
+    private String lease() {
+        return redisTemplate.execute(takeScript, KEYS,
+                Long.toString(System.currentTimeMillis()), Long.toString(properties.codeLease().toMillis()));
+    }
+
+    private String randomCode() {
+        String alphabet = properties.codeAlphabet();
+        StringBuilder sb = new StringBuilder(properties.codeLength());
+        for (int i = 0; i < properties.codeLength(); i++) {
+            sb.append(alphabet.charAt(secureRandom.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
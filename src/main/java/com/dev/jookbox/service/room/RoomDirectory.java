@@ -0,0 +1,55 @@
+package com.dev.jookbox.service.room;
+
+import com.dev.jookbox.config.RoomProperties;
+import com.dev.jookbox.domain.RoomRef;
+import com.dev.jookbox.repository.RoomRepository;
+import com.dev.jookbox.web.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Resolves room codes to {@link RoomRef}s from a bounded in-memory cache, falling back to one projection query.
+ * A code always maps to the same room id, and nothing changes a room's status or host after creation, so entries
+ * only expire after {@code jookbox.rooms.cache-ttl}. Unknown codes are not cached.
+ */
+@Component
+public class RoomDirectory {
+
+    private final RoomRepository roomRepository;
+    private final Cache<String, RoomRef> rooms;
+
+    public RoomDirectory(RoomRepository roomRepository,
+                         RoomProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.roomRepository = roomRepository;
+        this.rooms = Caffeine.newBuilder()
+                .maximumSize(properties.cacheSize())
+                .expireAfterWrite(properties.cacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, rooms, "rooms");
+        Gauge.builder("jookbox.rooms.cache.hit.ratio", rooms, cache -> cache.stats().hitRate())
+                .description("Share of room code lookups served from memory")
+                .register(meterRegistry);
+    }
+
+    public Optional<RoomRef> find(String roomCode) {
+        RoomRef cached = rooms.getIfPresent(roomCode);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<RoomRef> loaded = roomRepository.findRefByCode(roomCode);
+        loaded.ifPresent(room -> rooms.put(roomCode, room));
+        return loaded;
+    }
+
+    public RoomRef require(String roomCode) {
+        return find(roomCode).orElseThrow(() -> new ResourceNotFoundException("Room not found"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.dev.jookbox.service.vote;
+
+import com.dev.jookbox.domain.QueueItem;
+import com.dev.jookbox.domain.VoteType;
+import com.dev.jookbox.repository.QueueItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Copies votes tallied in Redis into the {@code votes} table for auditing. Votes are written in batches; a vote
+ * whose queue item has not been flushed to {@code queue_items} yet waits for a later batch. Rows that already
+ * exist (a vote repeated after its Redis tally expired, or a batch retried after an ambiguous commit) are skipped.
+ * If a batch still fails, its votes are written one at a time so a single bad row cannot hold back the rest.
+ */
+@Component
+public class VoteAuditWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteAuditWriter.class);
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ATTEMPTS = 20;
+    private static final String INSERT_VOTE = """
+            insert into votes (id, queue_item_id, user_id, type, created_at)
+            values (?, ?, ?, ?, ?)
+            on conflict do nothing""";
+
+    private final QueueItemRepository queueItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final Queue<PendingVote> pending = new ConcurrentLinkedQueue<>();
+
+    public VoteAuditWriter(QueueItemRepository queueItemRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager) {
+        this.queueItemRepository = queueItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void append(UUID queueItemId, UUID userId, VoteType type, OffsetDateTime createdAt) {
+        pending.add(new PendingVote(UUID.randomUUID(), queueItemId, userId, type, createdAt, 0));
+    }
+
+    @Scheduled(fixedDelayString = "${jookbox.votes.audit-interval-ms:1000}")
+    public void flush() {
+        List<PendingVote> batch = new ArrayList<>();
+        PendingVote vote;
+        while (batch.size() < BATCH_SIZE && (vote = pending.poll()) != null) {
+            batch.add(vote);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PendingVote> deferred;
+        try {
+            deferred = writeTransaction.execute(status -> write(batch));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write {} audited votes as a batch, writing them one by one: {}",
+                    batch.size(), ex.getMessage());
+            deferred = writeEach(batch);
+        }
+        deferred.forEach(this::retry);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private List<PendingVote> writeEach(List<PendingVote> batch) {
+        List<PendingVote> failed = new ArrayList<>();
+        for (PendingVote vote : batch) {
+            try {
+                failed.addAll(writeTransaction.execute(status -> write(List.of(vote))));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to write audit record for vote {} on item {}: {}",
+                        vote.type(), vote.queueItemId(), ex.getMessage());
+                failed.add(vote);
+            }
+        }
+        return failed;
+    }
+
+    private List<PendingVote> write(List<PendingVote> batch) {
+        Set<UUID> persistedItems = queueItemRepository.findAllById(
+                        batch.stream().map(PendingVote::queueItemId).collect(Collectors.toSet()))
+                .stream()
+                .map(QueueItem::getId)
+                .collect(Collectors.toSet());
+        List<PendingVote> ready = new ArrayList<>();
+        List<PendingVote> deferred = new ArrayList<>();
+        for (PendingVote vote : batch) {
+            if (persistedItems.contains(vote.queueItemId())) {
+                ready.add(vote);
+            } else {
+                deferred.add(vote);
+            }
+        }
+        if (!ready.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_VOTE, ready, ready.size(), (statement, vote) -> {
+                statement.setObject(1, vote.id());
+                statement.setObject(2, vote.queueItemId());
+                statement.setObject(3, vote.userId());
+                statement.setString(4, vote.type().name());
+                statement.setObject(5, vote.createdAt());
+            });
+        }
+        return deferred;
+    }
+
+    private void retry(PendingVote vote) {
+        if (vote.attempts() + 1 >= MAX_ATTEMPTS) {
+            log.warn("Dropping audit record for vote {} on item {} after {} attempts",
+                    vote.type(), vote.queueItemId(), MAX_ATTEMPTS);
+            return;
+        }
+        pending.add(vote.nextAttempt());
+    }
+
+    private record PendingVote(
+            UUID id,
+            UUID queueItemId,
+            UUID userId,
+            VoteType type,
+            OffsetDateTime createdAt,
+            int attempts
+    ) {
+        PendingVote nextAttempt() {
+            return new PendingVote(id, queueItemId, userId, type, createdAt, attempts + 1);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.dev.jookbox.service.vote;
+
+import com.dev.jookbox.domain.VoteType;
+import com.dev.jookbox.service.membership.MemberCounter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Live vote state in Redis: one set of voter ids per (queue item, vote type). Dedupe, add, count and the
+ * threshold check run as one Lua script, and the outcome is reported exactly once per item and type. The
+ * threshold is a majority of the room's member counter, read inside the same script.
+ */
+@Component
+public class VoteTally {
+
+    private static final Duration VOTE_TTL = Duration.ofDays(1);
+    private static final long NOT_SEEDED = -1;
+
+    public enum Result {
+        DUPLICATE,
+        RECORDED,
+        THRESHOLD_REACHED
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final MemberCounter memberCounter;
+    private final RedisScript<Long> tallyScript =
+            RedisScript.of(new ClassPathResource("redis/vote-tally.lua"), Long.class);
+
+    public VoteTally(StringRedisTemplate redisTemplate, MemberCounter memberCounter) {
+        this.redisTemplate = redisTemplate;
+        this.memberCounter = memberCounter;
+    }
+
+    public Result record(UUID roomId, UUID queueItemId, VoteType type, UUID userId) {
+        String votersKey = "votes:" + queueItemId + ":" + type.name();
+        List<String> keys = List.of(votersKey, votersKey + ":outcome", MemberCounter.key(roomId));
+        long outcome = run(keys, userId);
+        if (outcome == NOT_SEEDED) {
+            memberCounter.seed(roomId);
+            outcome = run(keys, userId);
+        }
+        return switch ((int) outcome) {
+            case 0 -> Result.DUPLICATE;
+            case 2 -> Result.THRESHOLD_REACHED;
+            default -> Result.RECORDED;
+        };
+    }
+
+    private long run(List<String> keys, UUID userId) {
+        Long outcome = redisTemplate.execute(tallyScript, keys,
+                userId.toString(),
+                Long.toString(VOTE_TTL.toSeconds()));
+        if (outcome == null) {
+            throw new IllegalStateException("Vote tally script returned no result");
+        }
+        return outcome;
+    }
+}
@@ -14,15 +14,12 @@ public class ApiExceptionHandler {
     @ExceptionHandler({
             ResourceNotFoundException.class,
             BadRequestException.class,
-            ForbiddenOperationException.class
+            ForbiddenOperationException.class,
+            ConflictException.class,
+            RoomBusyException.class
     })
     public ResponseEntity<Map<String, Object>> handleRuntime(RuntimeException ex) {
-        HttpStatus status = HttpStatus.BAD_REQUEST;
-        if (ex instanceof ResourceNotFoundException) {
-            status = HttpStatus.NOT_FOUND;
-        } else if (ex instanceof ForbiddenOperationException) {
-            status = HttpStatus.FORBIDDEN;
-        }
+        HttpStatus status = statusOf(ex);
         return ResponseEntity.status(status).body(Map.of(
                 "timestamp", Instant.now().toString(),
                 "status", status.value(),
@@ -30,4 +27,20 @@ public class ApiExceptionHandler {
                 "message", ex.getMessage()
         ));
     }
+
+    /**
+     * Status for one of the handled exceptions; shared with the STOMP command error handler.
+     */
+    public static HttpStatus statusOf(RuntimeException ex) {
+        if (ex instanceof ResourceNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        } else if (ex instanceof ForbiddenOperationException) {
+            return HttpStatus.FORBIDDEN;
+        } else if (ex instanceof ConflictException) {
+            return HttpStatus.CONFLICT;
+        } else if (ex instanceof RoomBusyException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return HttpStatus.BAD_REQUEST;
+    }
 }
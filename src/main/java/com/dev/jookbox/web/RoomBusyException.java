@@ -0,0 +1,11 @@
+package com.dev.jookbox.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RoomBusyException extends RuntimeException {
+    public RoomBusyException(String message) {
+        super(message);
+    }
+}
@@ -7,6 +7,9 @@ public record PlaybackStateResponse(
         UUID nowPlayingQueueItemId,
         int positionMs,
         boolean playing,
-        Instant lastUpdateTs
+        Instant lastUpdateTs,
+        long version,
+        long effectivePositionMs,
+        Instant serverTime
 ) {
 }
@@ -0,0 +1,12 @@
+package com.dev.jookbox.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record QueueBulkAddRequest(
+        @NotEmpty @Size(max = 500) List<@Valid QueueAddRequest> items
+) {
+}
@@ -0,0 +1,9 @@
+package com.dev.jookbox.web.dto;
+
+import java.util.List;
+
+public record QueueDeltaMessage(
+        long revision,
+        List<QueueOperationView> ops
+) {
+}
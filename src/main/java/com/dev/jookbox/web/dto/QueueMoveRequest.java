@@ -3,6 +3,7 @@ package com.dev.jookbox.web.dto;
 import jakarta.validation.constraints.Min;
 
 public record QueueMoveRequest(
-        @Min(0) int newPosition
+        @Min(0) int newPosition,
+        Long expectedRevision
 ) {
 }
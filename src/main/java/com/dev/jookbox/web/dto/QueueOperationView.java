@@ -0,0 +1,17 @@
+package com.dev.jookbox.web.dto;
+
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.domain.QueueOperationType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record QueueOperationView(
+        QueueOperationType op,
+        UUID itemId,
+        Integer index,
+        QueueItemStatus status,
+        QueueItemView item
+) {
+}
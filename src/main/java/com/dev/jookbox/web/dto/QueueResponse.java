@@ -3,6 +3,7 @@ package com.dev.jookbox.web.dto;
 import java.util.List;
 
 public record QueueResponse(
+        long revision,
         List<QueueItemView> items
 ) {
 }
@@ -0,0 +1,10 @@
+package com.dev.jookbox.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+public record RoomEventView(
+        String id,
+        String type,
+        @JsonRawValue String data
+) {
+}
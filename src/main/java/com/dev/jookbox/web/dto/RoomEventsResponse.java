@@ -0,0 +1,9 @@
+package com.dev.jookbox.web.dto;
+
+import java.util.List;
+
+public record RoomEventsResponse(
+        boolean snapshotRequired,
+        List<RoomEventView> events
+) {
+}
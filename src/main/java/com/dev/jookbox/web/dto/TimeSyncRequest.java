@@ -0,0 +1,6 @@
+package com.dev.jookbox.web.dto;
+
+public record TimeSyncRequest(
+        long clientTime
+) {
+}
@@ -0,0 +1,8 @@
+package com.dev.jookbox.web.dto;
+
+public record TimeSyncResponse(
+        long clientTime,
+        long serverReceiveTime,
+        long serverSendTime
+) {
+}
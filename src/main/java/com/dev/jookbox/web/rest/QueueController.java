@@ -3,6 +3,7 @@ package com.dev.jookbox.web.rest;
 import com.dev.jookbox.security.AuthenticatedMember;
 import com.dev.jookbox.service.QueueService;
 import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.dev.jookbox.web.dto.QueueBulkAddRequest;
 import com.dev.jookbox.web.dto.QueueItemView;
 import com.dev.jookbox.web.dto.QueueMoveRequest;
 import com.dev.jookbox.web.dto.QueueResponse;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -38,6 +40,14 @@ public class QueueController {
         return queueService.enqueue(code, member, request);
     }
 
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<QueueItemView> enqueueAll(@PathVariable String code,
+                                          @AuthenticationPrincipal AuthenticatedMember member,
+                                          @Valid @RequestBody QueueBulkAddRequest request) {
+        return queueService.enqueueAll(code, member, request);
+    }
+
     @PutMapping("/{itemId}/move")
     public QueueResponse move(@PathVariable String code,
                               @PathVariable UUID itemId,
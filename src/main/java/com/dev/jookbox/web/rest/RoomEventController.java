@@ -0,0 +1,33 @@
+package com.dev.jookbox.web.rest;
+
+import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.service.events.RoomEventLog;
+import com.dev.jookbox.web.ForbiddenOperationException;
+import com.dev.jookbox.web.dto.RoomEventsResponse;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/rooms/{code}/events")
+public class RoomEventController {
+
+    private final RoomEventLog eventLog;
+
+    public RoomEventController(RoomEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    @GetMapping
+    public RoomEventsResponse eventsAfter(@PathVariable String code,
+                                          @AuthenticationPrincipal AuthenticatedMember member,
+                                          @RequestParam String after) {
+        if (!member.roomCode().equals(code)) {
+            throw new ForbiddenOperationException("Membership not associated with this room");
+        }
+        return eventLog.readAfter(code, after);
+    }
+}
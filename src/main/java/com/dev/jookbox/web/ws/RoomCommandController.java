@@ -0,0 +1,139 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.domain.VoteType;
+import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.security.MemberAuthentication;
+import com.dev.jookbox.security.MembershipEpochs;
+import com.dev.jookbox.service.PlaybackService;
+import com.dev.jookbox.service.QueueService;
+import com.dev.jookbox.service.VoteService;
+import com.dev.jookbox.web.ForbiddenOperationException;
+import com.dev.jookbox.web.dto.PlayRequest;
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.dev.jookbox.web.dto.QueueMoveRequest;
+import com.dev.jookbox.web.dto.SeekRequest;
+import jakarta.validation.Valid;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Room actions over the open STOMP session, sent to {@code /app/rooms/{code}/...}. The session is authenticated
+ * once at CONNECT by {@link StompAuthenticationInterceptor}, and each handler calls the same service method as
+ * its REST endpoint. A SEND frame carrying a {@code receipt} header gets a RECEIPT once the action is applied.
+ * Failures go to {@code /user/queue/errors} through {@link StompExceptionHandler}.
+ * The resulting state is not sent back to the sender. It reaches every subscriber through the room topics.
+ */
+@Controller
+@MessageMapping("/rooms/{code}")
+public class RoomCommandController {
+
+    private final QueueService queueService;
+    private final VoteService voteService;
+    private final PlaybackService playbackService;
+    private final StompReceipts receipts;
+    private final MembershipEpochs epochs;
+
+    public RoomCommandController(QueueService queueService,
+                                 VoteService voteService,
+                                 PlaybackService playbackService,
+                                 StompReceipts receipts,
+                                 MembershipEpochs epochs) {
+        this.queueService = queueService;
+        this.voteService = voteService;
+        this.playbackService = playbackService;
+        this.receipts = receipts;
+        this.epochs = epochs;
+    }
+
+    @MessageMapping("/queue/add")
+    public void enqueue(@DestinationVariable String code,
+                        @Valid @Payload QueueAddRequest request,
+                        Principal principal,
+                        SimpMessageHeaderAccessor headers) {
+        queueService.enqueue(code, member(principal), request);
+        receipts.acknowledge(headers);
+    }
+
+    @MessageMapping("/queue/{itemId}/move")
+    public void move(@DestinationVariable String code,
+                     @DestinationVariable UUID itemId,
+                     @Valid @Payload QueueMoveRequest request,
+                     Principal principal,
+                     SimpMessageHeaderAccessor headers) {
+        queueService.move(code, itemId, request, member(principal));
+        receipts.acknowledge(headers);
+    }
+
+    @MessageMapping("/queue/{itemId}/remove")
+    public void remove(@DestinationVariable String code,
+                       @DestinationVariable UUID itemId,
+                       Principal principal,
+                       SimpMessageHeaderAccessor headers) {
+        queueService.removeItem(code, itemId, member(principal));
+        receipts.acknowledge(headers);
+    }
+
+    @MessageMapping("/queue/{itemId}/vote-skip")
+    public void voteSkip(@DestinationVariable String code,
+                         @DestinationVariable UUID itemId,
+                         Principal principal,
+                         SimpMessageHeaderAccessor headers) {
+        voteService.vote(code, itemId, VoteType.SKIP, member(principal));
+        receipts.acknowledge(headers);
+    }
+
+    @MessageMapping("/queue/{itemId}/vote-remove")
+    public void voteRemove(@DestinationVariable String code,
+                           @DestinationVariable UUID itemId,
+                           Principal principal,
+                           SimpMessageHeaderAccessor headers) {
+        voteService.vote(code, itemId, VoteType.REMOVE, member(principal));
+        receipts.acknowledge(headers);
+    }
+
+    @MessageMapping("/playback/play")
+    public void play(@DestinationVariable String code,
+                     @Valid @Payload PlayRequest request,
+                     Principal principal,
+                     SimpMessageHeaderAccessor headers) {
+        playbackService.play(code, request.queueItemId(), member(principal), request.positionMs());
+        receipts.acknowledge(headers);
+    }
+
+    @MessageMapping("/playback/pause")
+    public void pause(@DestinationVariable String code,
+                      Principal principal,
+                      SimpMessageHeaderAccessor headers) {
+        playbackService.pause(code, member(principal));
+        receipts.acknowledge(headers);
+    }
+
+    @MessageMapping("/playback/seek")
+    public void seek(@DestinationVariable String code,
+                     @Valid @Payload SeekRequest request,
+                     Principal principal,
+                     SimpMessageHeaderAccessor headers) {
+        playbackService.seek(code, request.positionMs(), member(principal));
+        receipts.acknowledge(headers);
+    }
+
+    /**
+     * The session's member, as long as the token it connected with has not been superseded since.
+     */
+    private AuthenticatedMember member(Principal principal) {
+        if (!(principal instanceof MemberAuthentication authentication)) {
+            throw new ForbiddenOperationException("Send a bearer token on CONNECT to use room commands");
+        }
+        AuthenticatedMember member = authentication.getPrincipal();
+        if (!epochs.isCurrent(member)) {
+            throw new ForbiddenOperationException("Permissions changed; reconnect with the token from /user/queue/token");
+        }
+        return member;
+    }
+}
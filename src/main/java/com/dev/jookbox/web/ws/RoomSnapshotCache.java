@@ -0,0 +1,145 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.config.WebSocketProperties;
+import com.dev.jookbox.service.PlaybackService;
+import com.dev.jookbox.service.QueueService;
+import com.dev.jookbox.service.events.RoomEventType;
+import com.dev.jookbox.web.dto.PlaybackStateResponse;
+import com.dev.jookbox.web.dto.QueueResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Queue and playback snapshots per room, tagged with the queue revision or playback version they were rendered
+ * at. A snapshot is reused until the room moves past that version. The first subscriber to miss installs a pending
+ * entry and renders outside the cache (a queue render may be forwarded to the room's owner); subscribers arriving
+ * meanwhile wait for that render, so a join storm pays for one render per change rather than one per subscriber.
+ * <p>
+ * A playback snapshot only caches the fields fixed by its version; {@code effectivePositionMs} and
+ * {@code serverTime} change with the clock and are added to each reply when it is sent.
+ */
+@Component
+public class RoomSnapshotCache {
+
+    private final QueueService queueService;
+    private final PlaybackService playbackService;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Snapshot<?>> snapshots;
+
+    public RoomSnapshotCache(QueueService queueService,
+                             PlaybackService playbackService,
+                             ObjectMapper objectMapper,
+                             WebSocketProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.queueService = queueService;
+        this.playbackService = playbackService;
+        this.objectMapper = objectMapper;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(properties.snapshotCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "roomSnapshots");
+    }
+
+    public String queue(String roomCode) {
+        long revision = queueService.currentRevision(roomCode);
+        return lookup(RoomEventType.QUEUE, roomCode, revision,
+                () -> write(queueService.getQueue(roomCode))).body();
+    }
+
+    public JsonNode playback(String roomCode) {
+        Optional<PlaybackStateResponse> state = playbackService.getState(roomCode);
+        if (state.isEmpty()) {
+            return NullNode.getInstance();
+        }
+        PlaybackStateResponse current = state.get();
+        Rendered<ObjectNode> fields = lookup(RoomEventType.PLAYBACK, roomCode, current.version(),
+                () -> objectMapper.<ObjectNode>valueToTree(VersionedPlayback.of(current)));
+        if (fields.version() != current.version()) {
+            // a newer state was cached meanwhile; its position cannot be worked out from this read
+            return objectMapper.valueToTree(current);
+        }
+        ObjectNode reply = objectMapper.createObjectNode();
+        reply.setAll(fields.body());
+        reply.put("effectivePositionMs", current.effectivePositionMs());
+        reply.set("serverTime", objectMapper.valueToTree(current.serverTime()));
+        return reply;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Rendered<T> lookup(RoomEventType type, String roomCode, long version, Supplier<T> render) {
+        String key = type.topic() + ':' + roomCode;
+        Snapshot<T> cached = (Snapshot<T>) snapshots.getIfPresent(key);
+        if (cached == null || cached.version() < version) {
+            Snapshot<T> pending = new Snapshot<>(version, new CompletableFuture<>());
+            cached = (Snapshot<T>) snapshots.asMap().compute(key, (ignored, current) ->
+                    current != null && current.version() >= version ? current : pending);
+            if (cached == pending) {
+                try {
+                    pending.body().complete(render.get());
+                } catch (RuntimeException ex) {
+                    snapshots.asMap().remove(key, pending);
+                    pending.body().completeExceptionally(ex);
+                    throw ex;
+                }
+            }
+        }
+        try {
+            return new Rendered<>(cached.version(), cached.body().join());
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private String write(Object snapshot) {
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize room snapshot", e);
+        }
+    }
+
+    /**
+     * A cache entry: the version it stands for and its render, which may still be running.
+     */
+    private record Snapshot<T>(long version, CompletableFuture<T> body) {
+    }
+
+    private record Rendered<T>(long version, T body) {
+    }
+
+    /**
+     * The fields of {@link PlaybackStateResponse} that only change with the playback version, in the same order.
+     */
+    private record VersionedPlayback(
+            UUID nowPlayingQueueItemId,
+            int positionMs,
+            boolean playing,
+            Instant lastUpdateTs,
+            long version
+    ) {
+
+        static VersionedPlayback of(PlaybackStateResponse state) {
+            return new VersionedPlayback(state.nowPlayingQueueItemId(), state.positionMs(), state.playing(),
+                    state.lastUpdateTs(), state.version());
+        }
+    }
+}
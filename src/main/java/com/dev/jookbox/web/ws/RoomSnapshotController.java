@@ -0,0 +1,46 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.security.MemberAuthentication;
+import com.dev.jookbox.web.ForbiddenOperationException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * One-shot snapshots on subscription. A joining client subscribes to {@code /app/rooms/{code}/queue} and
+ * {@code /app/rooms/{code}/playback} next to the matching {@code /topic} destinations and gets the current
+ * state as a single reply, instead of following up with the two REST reads. Replies come from
+ * {@link RoomSnapshotCache}: the queue pre-serialized, playback as the cached fields plus the current position.
+ */
+@Controller
+public class RoomSnapshotController {
+
+    private final RoomSnapshotCache snapshots;
+
+    public RoomSnapshotController(RoomSnapshotCache snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    @SubscribeMapping("/rooms/{code}/queue")
+    public RawValue queue(@DestinationVariable String code, Principal principal) {
+        requireMember(code, principal);
+        return new RawValue(snapshots.queue(code));
+    }
+
+    @SubscribeMapping("/rooms/{code}/playback")
+    public JsonNode playback(@DestinationVariable String code, Principal principal) {
+        requireMember(code, principal);
+        return snapshots.playback(code);
+    }
+
+    private static void requireMember(String code, Principal principal) {
+        if (!(principal instanceof MemberAuthentication authentication)
+                || !authentication.getPrincipal().roomCode().equals(code)) {
+            throw new ForbiddenOperationException("Membership not associated with this room");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.config.WebSocketProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps one slow STOMP session from piling up playback frames. Frames are counted from the moment they enter the
+ * client outbound channel until they are written to the socket. While a session has more than
+ * {@code jookbox.websocket.slow-session-frames} in flight, playback frames for it are held back, only the latest
+ * per destination is kept, and that one is re-sent on the outbound executor once the session has drained. Every
+ * playback frame is a full state, so skipping intermediate ones is safe. A frame that fails to reach the socket
+ * resets the session's count, so a failed send cannot leave a session looking slow forever. Queue deltas are never skipped; a session that cannot keep up
+ * with those runs into the transport's send-time or buffer limit and is closed.
+ */
+@Component
+public class SlowConsumerGuard implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private final MessageChannel outboundChannel;
+    private final Executor outboundExecutor;
+    private final int slowSessionFrames;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final Counter superseded;
+    private final Counter terminated;
+
+    /**
+     * The channel and its executor are injected lazily: the guard is itself part of the channel's configuration.
+     */
+    public SlowConsumerGuard(@Lazy @Qualifier("clientOutboundChannel") MessageChannel outboundChannel,
+                             @Lazy @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor,
+                             WebSocketProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.outboundChannel = outboundChannel;
+        this.outboundExecutor = outboundExecutor;
+        this.slowSessionFrames = properties.slowSessionFrames();
+        Gauge.builder("jookbox.ws.outbound.pending", sessions,
+                        map -> map.values().stream().mapToInt(state -> state.pending.get()).sum())
+                .description("Frames accepted for STOMP sessions but not yet written to the socket")
+                .register(meterRegistry);
+        Gauge.builder("jookbox.ws.outbound.pending.max", sessions,
+                        map -> map.values().stream().mapToInt(state -> state.pending.get()).max().orElse(0))
+                .description("Largest per-session backlog")
+                .register(meterRegistry);
+        Gauge.builder("jookbox.ws.sessions.slow", sessions,
+                        map -> map.values().stream().filter(state -> !state.held.isEmpty()).count())
+                .description("Sessions with held-back playback frames")
+                .register(meterRegistry);
+        this.superseded = Counter.builder("jookbox.ws.playback.superseded")
+                .description("Playback frames skipped for slow sessions")
+                .register(meterRegistry);
+        this.terminated = Counter.builder("jookbox.ws.sessions.terminated")
+                .description("Sessions closed for exceeding the send-time or buffer limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        SessionState state = sessionOf(accessor);
+        if (state == null) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE && isPlayback(destination)
+                && state.pending.get() >= slowSessionFrames) {
+            if (state.held.put(destination, message) != null) {
+                superseded.increment();
+            }
+            return null;
+        }
+        state.pending.incrementAndGet();
+        return message;
+    }
+
+    /**
+     * A counted frame the channel could not hand to its executor never reaches the socket.
+     */
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || ex != null) {
+            failed(sessionOf(SimpMessageHeaderAccessor.wrap(message)));
+        }
+    }
+
+    /**
+     * A counted frame whose handler failed, e.g. on a closed session, never reaches the socket.
+     */
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        if (ex != null) {
+            failed(sessionOf(SimpMessageHeaderAccessor.wrap(message)));
+        }
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState();
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new CountingSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                if (closeStatus.getCode() == CloseStatus.SESSION_NOT_RELIABLE.getCode()) {
+                    terminated.increment();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private SessionState sessionOf(SimpMessageHeaderAccessor accessor) {
+        return accessor.getSessionId() == null ? null : sessions.get(accessor.getSessionId());
+    }
+
+    private void sent(SessionState state) {
+        int pending = state.pending.updateAndGet(count -> Math.max(0, count - 1));
+        if (pending == 0 && !state.held.isEmpty()) {
+            // not on the transport thread: the re-sent frames go through preSend and the session's send lock
+            outboundExecutor.execute(() -> release(state));
+        }
+    }
+
+    private void release(SessionState state) {
+        for (String destination : state.held.keySet()) {
+            Message<?> latest = state.held.remove(destination);
+            if (latest != null) {
+                outboundChannel.send(latest);
+            }
+        }
+    }
+
+    private void failed(SessionState state) {
+        if (state != null) {
+            state.pending.set(0);
+            state.held.clear();
+        }
+    }
+
+    private static boolean isPlayback(String destination) {
+        return destination != null && destination.startsWith("/topic/rooms/") && destination.endsWith("/playback");
+    }
+
+    private static final class SessionState {
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Map<String, Message<?>> held = new ConcurrentHashMap<>();
+    }
+
+    private final class CountingSession extends WebSocketSessionDecorator {
+
+        private final SessionState state;
+
+        private CountingSession(WebSocketSession delegate, SessionState state) {
+            super(delegate);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } catch (IOException | RuntimeException ex) {
+                failed(state);
+                throw ex;
+            }
+            sent(state);
+        }
+    }
+}
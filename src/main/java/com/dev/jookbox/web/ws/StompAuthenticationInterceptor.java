@@ -0,0 +1,56 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.security.JwtService;
+import com.dev.jookbox.security.MemberAuthentication;
+import com.dev.jookbox.security.MembershipEpochs;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates a STOMP session once, from the {@code Authorization: Bearer <jwt>} header of its CONNECT frame.
+ * The member becomes the session user for every later frame. Sessions without a token stay anonymous: they can
+ * subscribe but not send room commands.
+ */
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    private final JwtService jwtService;
+    private final MembershipEpochs epochs;
+
+    public StompAuthenticationInterceptor(JwtService jwtService, MembershipEpochs epochs) {
+        this.jwtService = jwtService;
+        this.epochs = epochs;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String header = accessor.getFirstNativeHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return message;
+        }
+        String token = header.substring(7);
+        AuthenticatedMember member;
+        try {
+            member = jwtService.parse(token);
+        } catch (RuntimeException ex) {
+            throw new MessageDeliveryException(message, "Invalid token");
+        }
+        if (!epochs.isCurrent(member)) {
+            throw new MessageDeliveryException(message, "Token superseded");
+        }
+        accessor.setUser(new MemberAuthentication(member, token));
+        return message;
+    }
+}
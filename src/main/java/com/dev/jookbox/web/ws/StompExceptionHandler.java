@@ -0,0 +1,67 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.web.ApiExceptionHandler;
+import com.dev.jookbox.web.BadRequestException;
+import com.dev.jookbox.web.ConflictException;
+import com.dev.jookbox.web.ForbiddenOperationException;
+import com.dev.jookbox.web.ResourceNotFoundException;
+import com.dev.jookbox.web.RoomBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * STOMP counterpart of {@link ApiExceptionHandler}. A failed command or subscription is reported to the sending
+ * session on {@code /user/queue/errors} in the REST error shape, plus the {@code receiptId} of the frame when it
+ * asked for one.
+ */
+@ControllerAdvice
+public class StompExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(StompExceptionHandler.class);
+
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> handleError(Exception ex, SimpMessageHeaderAccessor headers) {
+        HttpStatus status;
+        String message;
+        if (ex instanceof MethodArgumentNotValidException) {
+            status = HttpStatus.BAD_REQUEST;
+            message = "Invalid payload";
+        } else if (ex instanceof RuntimeException runtime && isApiException(runtime)) {
+            status = ApiExceptionHandler.statusOf(runtime);
+            message = ex.getMessage();
+        } else {
+            log.warn("STOMP frame to {} failed", headers.getDestination(), ex);
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+            message = "Request failed";
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", Instant.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        String receipt = headers.getFirstNativeHeader("receipt");
+        if (receipt != null) {
+            body.put("receiptId", receipt);
+        }
+        return body;
+    }
+
+    private static boolean isApiException(RuntimeException ex) {
+        return ex instanceof ResourceNotFoundException
+                || ex instanceof BadRequestException
+                || ex instanceof ForbiddenOperationException
+                || ex instanceof ConflictException
+                || ex instanceof RoomBusyException;
+    }
+}
@@ -0,0 +1,36 @@
+package com.dev.jookbox.web.ws;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers a handled SEND frame that asked for a {@code receipt} with a RECEIPT frame. The simple broker does not
+ * do this for application destinations.
+ */
+@Component
+public class StompReceipts {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final MessageChannel clientOutboundChannel;
+
+    public StompReceipts(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel) {
+        this.clientOutboundChannel = clientOutboundChannel;
+    }
+
+    public void acknowledge(SimpMessageHeaderAccessor command) {
+        String receipt = command.getFirstNativeHeader("receipt");
+        if (receipt == null || command.getSessionId() == null) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.RECEIPT);
+        accessor.setReceiptId(receipt);
+        accessor.setSessionId(command.getSessionId());
+        clientOutboundChannel.send(MessageBuilder.createMessage(EMPTY, accessor.getMessageHeaders()));
+    }
+}
@@ -0,0 +1,23 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.web.dto.TimeSyncRequest;
+import com.dev.jookbox.web.dto.TimeSyncResponse;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+/**
+ * NTP-style clock sync over STOMP. The client sends its clock in {@code clientTime} to {@code /app/time} and gets
+ * back the server receive and send times on {@code /user/queue/time}; from a few round trips it keeps the sample
+ * with the smallest RTT and derives its offset to the server clock.
+ */
+@Controller
+public class TimeSyncController {
+
+    @MessageMapping("/time")
+    @SendToUser(destinations = "/queue/time", broadcast = false)
+    public TimeSyncResponse sync(TimeSyncRequest request) {
+        long received = System.currentTimeMillis();
+        return new TimeSyncResponse(request.clientTime(), received, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,29 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.security.MembershipEpochChanged;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Hands a member whose token was superseded the replacement on {@code /user/queue/token}. Runs on every node, so
+ * the member's sessions get it wherever they are connected. The token goes to the member's own sessions only,
+ * never to the shared room topic.
+ */
+@Component
+public class TokenRefreshNotifier {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public TokenRefreshNotifier(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @EventListener
+    public void onEpochChanged(MembershipEpochChanged event) {
+        messagingTemplate.convertAndSendToUser(event.membershipId().toString(), "/queue/token",
+                Map.of("token", event.token(), "epoch", event.epoch()));
+    }
+}
@@ -0,0 +1,5 @@
+-- queue_items.position becomes a sparse rank (multiples of 1024 after a rebalance) so that moving or
+-- removing an item rewrites only that row. Retired items keep position -1.
+update queue_items
+set position = (position + 1) * 1024
+where status in ('QUEUED', 'PLAYING');
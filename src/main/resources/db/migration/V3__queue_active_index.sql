@@ -0,0 +1,5 @@
+-- Active (QUEUED/PLAYING) items are the only ones the queue ever reads back; PLAYED/REMOVED rows
+-- accumulate for the lifetime of a room and should not be scanned.
+create index idx_queue_room_active_position
+    on queue_items (room_id, position)
+    where status in ('QUEUED', 'PLAYING');
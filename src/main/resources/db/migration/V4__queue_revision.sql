@@ -0,0 +1,5 @@
+-- Optimistic concurrency: rooms carry the last persisted queue revision, and both rooms and
+-- queue_items get a JPA @Version column checked on every update.
+alter table rooms add column queue_revision bigint not null default 0;
+alter table rooms add column version bigint not null default 0;
+alter table queue_items add column version bigint not null default 0;
@@ -0,0 +1,11 @@
+-- Adds codes that were free in Postgres to the pool, skipping codes still leased to a room being created.
+-- KEYS[1] code pool set, KEYS[2] leased codes sorted set
+-- ARGV candidate codes
+-- Returns the number of codes added.
+local added = 0
+for i = 1, #ARGV do
+    if not redis.call('ZSCORE', KEYS[2], ARGV[i]) then
+        added = added + redis.call('SADD', KEYS[1], ARGV[i])
+    end
+end
+return added
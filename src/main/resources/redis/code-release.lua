@@ -0,0 +1,5 @@
+-- Returns a code to the pool and drops its lease.
+-- KEYS[1] code pool set, KEYS[2] leased codes sorted set
+-- ARGV[1] code
+redis.call('ZREM', KEYS[2], ARGV[1])
+return redis.call('SADD', KEYS[1], ARGV[1])
@@ -0,0 +1,11 @@
+-- Hands out one pooled room code and leases it until the room that uses it has had time to commit.
+-- KEYS[1] code pool set, KEYS[2] leased codes sorted set (score = lease time)
+-- ARGV[1] now in ms, ARGV[2] lease length in ms
+-- Returns the code, or nil when the pool is empty.
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', tonumber(ARGV[1]) - tonumber(ARGV[2]))
+local code = redis.call('SPOP', KEYS[1])
+if not code then
+    return false
+end
+redis.call('ZADD', KEYS[2], ARGV[1], code)
+return code
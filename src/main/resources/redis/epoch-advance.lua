@@ -0,0 +1,4 @@
+-- Moves a membership to its next epoch, invalidating every token issued before it.
+-- KEYS[1] membership epoch (kept without expiry so the count never restarts below an epoch a node has cached)
+-- Returns the new epoch.
+return redis.call('INCR', KEYS[1])
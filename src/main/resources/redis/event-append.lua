@@ -0,0 +1,7 @@
+-- Appends one room event to the room's capped stream.
+-- KEYS[1] event stream
+-- ARGV[1] approximate max length, ARGV[2] stream ttl in seconds, ARGV[3] event type, ARGV[4] JSON payload
+-- Returns the id of the new entry.
+local id = redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], '*', 'type', ARGV[3], 'data', ARGV[4])
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return id
@@ -0,0 +1,11 @@
+-- Gives back one member slot without letting the counter drop below zero.
+-- KEYS[1] member counter
+-- Returns the new member count, or -1 when the counter has not been seeded.
+local current = redis.call('GET', KEYS[1])
+if not current then
+    return -1
+end
+if tonumber(current) <= 0 then
+    return 0
+end
+return redis.call('DECR', KEYS[1])
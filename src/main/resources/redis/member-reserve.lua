@@ -0,0 +1,11 @@
+-- Takes one member slot in a room if the room is below its cap.
+-- KEYS[1] member counter, ARGV[1] member cap
+-- Returns the new member count, 0 when the room is full, -1 when the counter has not been seeded.
+local current = redis.call('GET', KEYS[1])
+if not current then
+    return -1
+end
+if tonumber(current) >= tonumber(ARGV[1]) then
+    return 0
+end
+return redis.call('INCR', KEYS[1])
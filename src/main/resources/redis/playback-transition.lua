@@ -0,0 +1,33 @@
+-- Applies a pause or seek to the playback state of a room in place.
+-- KEYS[1] playback hash, KEYS[2] set of playing room codes
+-- ARGV[1] expected version ('' for any), ARGV[2] 'pause' or 'seek', ARGV[3] position ms (seek only),
+-- ARGV[4] update timestamp ms, ARGV[5] room code
+-- Returns the updated hash as a flat field/value list, {'conflict', version} when the expected version does not
+-- match, or nil when the room has no playback state.
+if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then
+    return nil
+end
+local version = tonumber(redis.call('HGET', KEYS[1], 'ver') or '0')
+if ARGV[1] ~= '' and tonumber(ARGV[1]) ~= version then
+    return {'conflict', tostring(version)}
+end
+if ARGV[2] == 'pause' then
+    -- fold the time played since the last update into the position, capped at the track's end
+    local pos = tonumber(redis.call('HGET', KEYS[1], 'pos') or '0')
+    if redis.call('HGET', KEYS[1], 'playing') == '1' then
+        local elapsed = tonumber(ARGV[4]) - tonumber(redis.call('HGET', KEYS[1], 'ts') or ARGV[4])
+        if elapsed > 0 then
+            pos = pos + elapsed
+        end
+        local duration = tonumber(redis.call('HGET', KEYS[1], 'dur') or '0')
+        if duration > 0 and pos > duration then
+            pos = duration
+        end
+    end
+    redis.call('HSET', KEYS[1], 'pos', string.format('%d', pos), 'playing', '0', 'ts', ARGV[4])
+    redis.call('SREM', KEYS[2], ARGV[5])
+else
+    redis.call('HSET', KEYS[1], 'pos', ARGV[3], 'ts', ARGV[4])
+end
+redis.call('HSET', KEYS[1], 'ver', tostring(version + 1))
+return redis.call('HGETALL', KEYS[1])
@@ -0,0 +1,21 @@
+-- Replaces the playback state of a room and bumps its version.
+-- KEYS[1] playback hash, KEYS[2] set of playing room codes
+-- ARGV[1] room id, ARGV[2] queue item id, ARGV[3] position ms, ARGV[4] playing flag, ARGV[5] update timestamp ms,
+-- ARGV[6] track duration ms (0 when unknown), ARGV[7] expected version ('' for any), ARGV[8] room code
+-- Returns the new version, or -1 when the expected version does not match.
+if redis.call('TYPE', KEYS[1]).ok == 'string' then
+    -- JSON value written by older builds
+    redis.call('DEL', KEYS[1])
+end
+if ARGV[7] ~= '' and tonumber(ARGV[7]) ~= tonumber(redis.call('HGET', KEYS[1], 'ver') or '0') then
+    return -1
+end
+local version = redis.call('HINCRBY', KEYS[1], 'ver', 1)
+redis.call('HSET', KEYS[1], 'room', ARGV[1], 'item', ARGV[2], 'pos', ARGV[3], 'playing', ARGV[4], 'ts', ARGV[5],
+        'dur', ARGV[6])
+if ARGV[4] == '1' then
+    redis.call('SADD', KEYS[2], ARGV[8])
+else
+    redis.call('SREM', KEYS[2], ARGV[8])
+end
+return version
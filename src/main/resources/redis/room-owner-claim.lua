@@ -0,0 +1,10 @@
+-- Claims a room for a node, or renews the node's claim.
+-- KEYS[1] owner key
+-- ARGV[1] node id, ARGV[2] lease ms
+-- Returns the id of the node that owns the room afterwards.
+local owner = redis.call('GET', KEYS[1])
+if owner and owner ~= ARGV[1] then
+    return owner
+end
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+return ARGV[1]
@@ -0,0 +1,8 @@
+-- Gives up a node's claim on a room; a claim held by another node is left alone.
+-- KEYS[1] owner key
+-- ARGV[1] node id
+-- Returns 1 if the claim was released.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
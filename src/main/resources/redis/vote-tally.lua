@@ -0,0 +1,19 @@
+-- Records one vote and checks the outcome threshold in a single round trip.
+-- KEYS[1] voter set for (item, type), KEYS[2] outcome marker for (item, type), KEYS[3] room member counter
+-- ARGV[1] user id, ARGV[2] key ttl in seconds
+-- Returns 0 when the user already voted, 1 when the vote was recorded, 2 when this vote reached the threshold,
+-- -1 when the member counter has not been seeded.
+local members = redis.call('GET', KEYS[3])
+if not members then
+    return -1
+end
+if redis.call('SADD', KEYS[1], ARGV[1]) == 0 then
+    return 0
+end
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+local required = math.max(1, math.floor(tonumber(members) / 2) + 1)
+if redis.call('SCARD', KEYS[1]) >= required
+        and redis.call('SET', KEYS[2], '1', 'NX', 'EX', ARGV[2]) then
+    return 2
+end
+return 1
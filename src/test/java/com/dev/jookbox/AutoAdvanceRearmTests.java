@@ -0,0 +1,126 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.service.PlaybackService;
+import com.dev.jookbox.service.command.RoomClaimed;
+import com.dev.jookbox.service.playback.AutoAdvanceScheduler;
+import com.dev.jookbox.service.playback.PlaybackStateStore;
+import com.dev.jookbox.service.room.RoomDirectory;
+import com.dev.jookbox.web.dto.PlayRequest;
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Drops a playing room's end-of-track timer, as a restart or a lost lease would, and checks that the periodic scan
+ * and a lease claim both re-arm it from the stored playback state, while a paused room stays without one.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = TestcontainersConfiguration.JWT_SECRET)
+@AutoConfigureMockMvc
+class AutoAdvanceRearmTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlaybackService playbackService;
+
+	@Autowired
+	private PlaybackStateStore stateStore;
+
+	@Autowired
+	private AutoAdvanceScheduler autoAdvance;
+
+	@Autowired
+	private RoomDirectory rooms;
+
+	@Autowired
+	private ApplicationEventPublisher events;
+
+	@Test
+	void scanRearmsAPlayingRoomThatLostItsTimer() throws Exception {
+		JsonNode room = createRoom();
+		String code = room.get("roomCode").asText();
+		play(room, enqueue(room));
+		assertThat(stateStore.playingRooms()).contains(code);
+
+		autoAdvance.cancel(code);
+		assertThat(autoAdvance.isTracking(code)).isFalse();
+
+		playbackService.rearmPlayingRooms();
+		assertThat(autoAdvance.isTracking(code)).isTrue();
+	}
+
+	@Test
+	void claimingARoomRearmsItsTimer() throws Exception {
+		JsonNode room = createRoom();
+		String code = room.get("roomCode").asText();
+		play(room, enqueue(room));
+		autoAdvance.cancel(code);
+
+		events.publishEvent(new RoomClaimed(rooms.require(code).id(), code));
+		assertThat(autoAdvance.isTracking(code)).isTrue();
+	}
+
+	@Test
+	void pausedRoomIsNotRearmed() throws Exception {
+		JsonNode room = createRoom();
+		String code = room.get("roomCode").asText();
+		play(room, enqueue(room));
+		mockMvc.perform(post("/rooms/{code}/playback/pause", code)
+						.header("Authorization", "Bearer " + room.get("token").asText()))
+				.andExpect(status().isAccepted());
+		assertThat(stateStore.playingRooms()).doesNotContain(code);
+
+		playbackService.rearmPlayingRooms();
+		events.publishEvent(new RoomClaimed(rooms.require(code).id(), code));
+		assertThat(autoAdvance.isTracking(code)).isFalse();
+	}
+
+	private JsonNode createRoom() throws Exception {
+		String body = mockMvc.perform(post("/rooms")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("hostDisplayName", "Rearm Host"))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private String enqueue(JsonNode room) throws Exception {
+		String body = mockMvc.perform(post("/rooms/{code}/queue", room.get("roomCode").asText())
+						.header("Authorization", "Bearer " + room.get("token").asText())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(new QueueAddRequest("video-1", "Track 1", 180, null))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("id").asText();
+	}
+
+	private void play(JsonNode room, String itemId) throws Exception {
+		mockMvc.perform(post("/rooms/{code}/playback/play", room.get("roomCode").asText())
+						.header("Authorization", "Bearer " + room.get("token").asText())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(
+								new PlayRequest(UUID.fromString(itemId), 0))))
+				.andExpect(status().isAccepted());
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.domain.PlaybackState;
+import com.dev.jookbox.service.playback.PlaybackStateStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives play, pause and resume through the Redis-backed {@link PlaybackStateStore} with explicit timestamps and
+ * checks the effective position at each step.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = TestcontainersConfiguration.JWT_SECRET)
+class PlaybackPauseResumeTests {
+
+	private static final Instant START = Instant.parse("2026-01-01T12:00:00Z");
+
+	@Autowired
+	private PlaybackStateStore stateStore;
+
+	@Test
+	void pauseFoldsPlayedTimeAndResumeContinuesFromThere() {
+		String roomCode = roomCode();
+		PlaybackState playing = stateStore.write(roomCode, playing(10_000, START, 180_000));
+		assertThat(playing.effectivePositionMs(START.plusSeconds(5))).isEqualTo(15_000);
+
+		PlaybackState paused = stateStore.pause(roomCode, playing.getVersion(), START.plusSeconds(5)).orElseThrow();
+		assertThat(paused.isPlaying()).isFalse();
+		assertThat(paused.getPositionMs()).isEqualTo(15_000);
+		assertThat(paused.getVersion()).isEqualTo(playing.getVersion() + 1);
+		// a paused track stays put however late it is read
+		assertThat(paused.effectivePositionMs(START.plusSeconds(60))).isEqualTo(15_000);
+		assertThat(stateStore.read(roomCode).orElseThrow().effectivePositionMs(START.plusSeconds(60)))
+				.isEqualTo(15_000);
+
+		Instant resumedAt = START.plusSeconds(8);
+		PlaybackState resumed = stateStore.write(roomCode,
+				playing((int) paused.effectivePositionMs(resumedAt), resumedAt, 180_000), paused.getVersion());
+		assertThat(resumed.effectivePositionMs(resumedAt)).isEqualTo(15_000);
+		assertThat(resumed.effectivePositionMs(START.plusSeconds(10))).isEqualTo(17_000);
+
+		PlaybackState pausedAgain = stateStore.pause(roomCode, resumed.getVersion(), START.plusSeconds(10))
+				.orElseThrow();
+		assertThat(pausedAgain.getPositionMs()).isEqualTo(17_000);
+	}
+
+	@Test
+	void positionStopsAtTheEndOfTheTrack() {
+		String roomCode = roomCode();
+		PlaybackState playing = stateStore.write(roomCode, playing(170_000, START, 180_000));
+		assertThat(playing.effectivePositionMs(START.plusSeconds(60))).isEqualTo(180_000);
+
+		PlaybackState paused = stateStore.pause(roomCode, playing.getVersion(), START.plusSeconds(60)).orElseThrow();
+		assertThat(paused.getPositionMs()).isEqualTo(180_000);
+	}
+
+	private static PlaybackState playing(int positionMs, Instant at, int durationMs) {
+		return PlaybackState.builder()
+				.roomId(UUID.randomUUID())
+				.nowPlayingQueueItemId(UUID.randomUUID())
+				.positionMs(positionMs)
+				.playing(true)
+				.lastUpdateTs(at)
+				.durationMs(durationMs)
+				.build();
+	}
+
+	private static String roomCode() {
+		return "T" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+	}
+
+}
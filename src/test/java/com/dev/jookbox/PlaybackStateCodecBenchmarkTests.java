@@ -0,0 +1,123 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.domain.PlaybackState;
+import com.dev.jookbox.service.playback.PlaybackStateStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times {@value #ITERATIONS} playback updates against a real Redis: the old path, which kept the state as one JSON
+ * string and did a seek as GET, decode, encode, SET, against {@link PlaybackStateStore}, which writes the hash
+ * through {@code playback-write.lua} and seeks in one {@code playback-transition.lua} call. Tagged
+ * {@code benchmark}: run with {@code ./gradlew benchmark}, not part of {@code test}.
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "security.jwt.secret=jookbox-benchmark-secret-0123456789abcdef")
+class PlaybackStateCodecBenchmarkTests {
+
+	private static final int WARMUP = 2_000;
+
+	private static final int ITERATIONS = 10_000;
+
+	private static final Instant START = Instant.parse("2026-01-01T12:00:00Z");
+
+	@Autowired
+	private PlaybackStateStore stateStore;
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final PlaybackState state = PlaybackState.builder()
+			.roomId(UUID.randomUUID())
+			.nowPlayingQueueItemId(UUID.randomUUID())
+			.positionMs(93_500)
+			.playing(true)
+			.lastUpdateTs(START)
+			.durationMs(240_000)
+			.build();
+
+	@Test
+	void jsonStringVersusHashScripts() throws Exception {
+		String jsonKey = "playback-json:" + roomCode();
+		String hashRoom = roomCode();
+		runJson(jsonKey, WARMUP);
+		runHash(hashRoom, WARMUP);
+
+		long jsonNanos = runJson(jsonKey, ITERATIONS);
+		long hashNanos = runHash(hashRoom, ITERATIONS);
+
+		System.out.printf("playback write+seek x%d: json string %d ms (%d us/op), hash scripts %d ms (%d us/op)%n",
+				ITERATIONS,
+				TimeUnit.NANOSECONDS.toMillis(jsonNanos), TimeUnit.NANOSECONDS.toMicros(jsonNanos / ITERATIONS),
+				TimeUnit.NANOSECONDS.toMillis(hashNanos), TimeUnit.NANOSECONDS.toMicros(hashNanos / ITERATIONS));
+	}
+
+	private long runJson(String key, int iterations) throws Exception {
+		JsonPlaybackState last = null;
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			JsonPlaybackState written = new JsonPlaybackState(state.getRoomId(), state.getNowPlayingQueueItemId(),
+					state.getPositionMs(), true, START, i * 2L);
+			redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(written));
+
+			JsonPlaybackState current = objectMapper.readValue(redisTemplate.opsForValue().get(key),
+					JsonPlaybackState.class);
+			last = new JsonPlaybackState(current.roomId(), current.nowPlayingQueueItemId(), seekTarget(i),
+					current.playing(), START.plusMillis(i), current.version() + 1);
+			redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(last));
+		}
+		long elapsed = System.nanoTime() - start;
+		assertThat(last.positionMs()).isEqualTo(seekTarget(iterations - 1));
+		return elapsed;
+	}
+
+	private long runHash(String roomCode, int iterations) {
+		PlaybackState last = null;
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			stateStore.write(roomCode, state);
+			last = stateStore.seek(roomCode, PlaybackStateStore.ANY_VERSION, seekTarget(i), START.plusMillis(i))
+					.orElseThrow();
+		}
+		long elapsed = System.nanoTime() - start;
+		assertThat(last.getPositionMs()).isEqualTo(seekTarget(iterations - 1));
+		return elapsed;
+	}
+
+	private static int seekTarget(int iteration) {
+		return 1_000 + iteration % 200_000;
+	}
+
+	private static String roomCode() {
+		return "B" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+	}
+
+	/**
+	 * Shape of the JSON the old path stored under {@code playback:{code}}.
+	 */
+	private record JsonPlaybackState(
+			UUID roomId,
+			UUID nowPlayingQueueItemId,
+			int positionMs,
+			boolean playing,
+			Instant lastUpdateTs,
+			long version
+	) {
+	}
+
+}
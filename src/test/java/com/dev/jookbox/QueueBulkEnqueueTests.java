@@ -0,0 +1,170 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.domain.Room;
+import com.dev.jookbox.repository.QueueItemRepository;
+import com.dev.jookbox.repository.QueueItemRow;
+import com.dev.jookbox.repository.RoomRepository;
+import com.dev.jookbox.service.queue.QueueFlusher;
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.dev.jookbox.web.dto.QueueBulkAddRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pastes the same playlist as {@value #TRACKS} single enqueues and as one bulk call, and checks that both rooms end
+ * up with the same queue in memory and in Postgres. The timing
+ * comparison over {@value #BENCHMARK_TRACKS} tracks is tagged {@code benchmark}: run with {@code ./gradlew benchmark}.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "security.jwt.secret=jookbox-test-secret-0123456789abcdef")
+@AutoConfigureMockMvc
+class QueueBulkEnqueueTests {
+
+	private static final int TRACKS = 50;
+	private static final int BENCHMARK_TRACKS = 300;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private QueueFlusher queueFlusher;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private QueueItemRepository queueItemRepository;
+
+	@Test
+	void bulkEnqueueBuildsTheSameQueueAsSingleEnqueues() throws Exception {
+		List<QueueAddRequest> playlist = playlist(TRACKS);
+
+		JsonNode singleRoom = createRoom();
+		enqueueOneByOne(singleRoom, playlist);
+
+		JsonNode bulkRoom = createRoom();
+		JsonNode created = enqueueBulk(bulkRoom, playlist);
+		assertThat(created).hasSize(TRACKS);
+		for (int i = 0; i < TRACKS; i++) {
+			assertThat(created.get(i).get("position").asInt()).isEqualTo(i);
+		}
+
+		JsonNode singleQueue = queue(singleRoom);
+		JsonNode bulkQueue = queue(bulkRoom);
+		assertThat(titles(bulkQueue)).isEqualTo(titles(singleQueue)).hasSize(TRACKS);
+		assertThat(bulkQueue.get("revision").asLong()).isEqualTo(1);
+		assertThat(singleQueue.get("revision").asLong()).isEqualTo(TRACKS);
+
+		queueFlusher.flushAll();
+		Room single = room(singleRoom);
+		Room bulk = room(bulkRoom);
+		assertThat(queueItemRepository.countByRoomAndStatus(single, QueueItemStatus.QUEUED)).isEqualTo(TRACKS);
+		assertThat(queueItemRepository.findActiveRowsByRoomId(bulk.getId()))
+				.extracting(QueueItemRow::title)
+				.isEqualTo(titles(bulkQueue));
+	}
+
+	@Test
+	@Tag("benchmark")
+	void singleEnqueuesVersusBulkEnqueue() throws Exception {
+		List<QueueAddRequest> playlist = playlist(BENCHMARK_TRACKS);
+
+		JsonNode singleRoom = createRoom();
+		long singleStart = System.nanoTime();
+		enqueueOneByOne(singleRoom, playlist);
+		queueFlusher.flushAll();
+		long singleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - singleStart);
+
+		JsonNode bulkRoom = createRoom();
+		long bulkStart = System.nanoTime();
+		enqueueBulk(bulkRoom, playlist);
+		queueFlusher.flushAll();
+		long bulkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bulkStart);
+
+		System.out.printf("queue enqueue benchmark: %d single enqueues = %d ms, one bulk enqueue = %d ms%n",
+				BENCHMARK_TRACKS, singleMillis, bulkMillis);
+
+		assertThat(queueItemRepository.countByRoomAndStatus(room(singleRoom), QueueItemStatus.QUEUED))
+				.isEqualTo(BENCHMARK_TRACKS);
+		assertThat(queueItemRepository.countByRoomAndStatus(room(bulkRoom), QueueItemStatus.QUEUED))
+				.isEqualTo(BENCHMARK_TRACKS);
+	}
+
+	private void enqueueOneByOne(JsonNode room, List<QueueAddRequest> playlist) throws Exception {
+		for (QueueAddRequest track : playlist) {
+			mockMvc.perform(post("/rooms/{code}/queue", room.get("roomCode").asText())
+							.header("Authorization", "Bearer " + room.get("token").asText())
+							.contentType(MediaType.APPLICATION_JSON)
+							.content(objectMapper.writeValueAsString(track)))
+					.andExpect(status().isCreated());
+		}
+	}
+
+	private JsonNode enqueueBulk(JsonNode room, List<QueueAddRequest> playlist) throws Exception {
+		String body = mockMvc.perform(post("/rooms/{code}/queue/bulk", room.get("roomCode").asText())
+						.header("Authorization", "Bearer " + room.get("token").asText())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(new QueueBulkAddRequest(playlist))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private static List<QueueAddRequest> playlist(int size) {
+		List<QueueAddRequest> tracks = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			tracks.add(new QueueAddRequest("video-" + i, "Track " + i, 180 + i, null));
+		}
+		return tracks;
+	}
+
+	private JsonNode createRoom() throws Exception {
+		String body = mockMvc.perform(post("/rooms")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("hostDisplayName", "Bulk Host"))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private JsonNode queue(JsonNode room) throws Exception {
+		String body = mockMvc.perform(get("/rooms/{code}/queue", room.get("roomCode").asText())
+						.header("Authorization", "Bearer " + room.get("token").asText()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private static List<String> titles(JsonNode queue) {
+		List<String> titles = new ArrayList<>();
+		queue.get("items").forEach(item -> titles.add(item.get("title").asText()));
+		return titles;
+	}
+
+	private Room room(JsonNode room) {
+		return roomRepository.findByCode(room.get("roomCode").asText()).orElseThrow();
+	}
+
+}
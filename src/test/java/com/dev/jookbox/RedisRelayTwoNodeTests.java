@@ -0,0 +1,263 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.domain.Room;
+import com.dev.jookbox.repository.QueueItemRepository;
+import com.dev.jookbox.repository.QueueItemRow;
+import com.dev.jookbox.repository.RoomRepository;
+import com.dev.jookbox.service.queue.QueueFlusher;
+import com.dev.jookbox.service.queue.RoomQueueStore;
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.dev.jookbox.web.dto.QueueMoveRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs two application instances against one Postgres and one Redis with {@code jookbox.broker.relay=redis}, and
+ * checks that a queue change made through one node reaches a STOMP subscriber connected to the other, that both
+ * nodes changing the same room end up with one queue, and that a node that lost a room does not flush over its new
+ * owner. Queues are only flushed when a test asks, so changes stay pending until then.
+ */
+@Testcontainers
+class RedisRelayTwoNodeTests {
+
+	@Container
+	static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+	@Container
+	static final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:latest"))
+			.withExposedPorts(6379);
+
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+
+	@BeforeEach
+	void startNodes() {
+		nodeA = startNode();
+		nodeB = startNode();
+	}
+
+	@AfterEach
+	void stopNodes() {
+		nodeA.close();
+		nodeB.close();
+	}
+
+	@Test
+	void queueDeltaReachesSubscriberOnOtherNode() throws Exception {
+		RestClient nodeARest = RestClient.create("http://localhost:" + port(nodeA));
+		JsonNode room = nodeARest.post().uri("/rooms")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(Map.of("hostDisplayName", "Relay Host"))
+				.retrieve()
+				.body(JsonNode.class);
+		String code = room.get("roomCode").asText();
+
+		BlockingQueue<Frame> frames = new LinkedBlockingQueue<>();
+		WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+		stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+		StompSession session = stompClient
+				.connectAsync("ws://localhost:" + port(nodeB) + "/ws", new StompSessionHandlerAdapter() {
+				})
+				.get(5, TimeUnit.SECONDS);
+		session.subscribe("/topic/rooms/" + code + "/queue", new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return JsonNode.class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				frames.add(new Frame(headers.getFirst("event-id"), (JsonNode) payload));
+			}
+		});
+		awaitRelayListening(nodeB);
+
+		nodeARest.post().uri("/rooms/{code}/queue", code)
+				.header("Authorization", "Bearer " + room.get("token").asText())
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(new QueueAddRequest("relay-video", "Relay Track", 200, null))
+				.retrieve()
+				.toBodilessEntity();
+
+		Frame frame = frames.poll(10, TimeUnit.SECONDS);
+		assertThat(frame).isNotNull();
+		assertThat(frame.eventId()).isNotBlank();
+		assertThat(frame.body().get("revision").asLong()).isEqualTo(1);
+		assertThat(frame.body().get("ops").get(0).get("item").get("title").asText()).isEqualTo("Relay Track");
+		session.disconnect();
+	}
+
+	@Test
+	void bothNodesChangingOneRoomShareOneQueue() {
+		RestClient nodeARest = RestClient.create("http://localhost:" + port(nodeA));
+		RestClient nodeBRest = RestClient.create("http://localhost:" + port(nodeB));
+		JsonNode room = nodeBRest.post().uri("/rooms")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(Map.of("hostDisplayName", "Shared Host"))
+				.retrieve()
+				.body(JsonNode.class);
+		String code = room.get("roomCode").asText();
+		String authorization = "Bearer " + room.get("token").asText();
+
+		for (int i = 0; i < 10; i++) {
+			RestClient node = i % 2 == 0 ? nodeARest : nodeBRest;
+			node.post().uri("/rooms/{code}/queue", code)
+					.header("Authorization", authorization)
+					.contentType(MediaType.APPLICATION_JSON)
+					.body(new QueueAddRequest("shared-video-" + i, "Track " + i, 200, null))
+					.retrieve()
+					.toBodilessEntity();
+		}
+		JsonNode beforeMove = queue(nodeARest, code, authorization);
+		String last = beforeMove.get("items").get(9).get("id").asText();
+		nodeBRest.put().uri("/rooms/{code}/queue/{itemId}/move", code, last)
+				.header("Authorization", authorization)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(new QueueMoveRequest(0, beforeMove.get("revision").asLong()))
+				.retrieve()
+				.toBodilessEntity();
+
+		JsonNode fromA = queue(nodeARest, code, authorization);
+		JsonNode fromB = queue(nodeBRest, code, authorization);
+		assertThat(fromA.get("revision").asLong()).isEqualTo(11);
+		assertThat(fromB).isEqualTo(fromA);
+		assertThat(titles(fromA)).containsExactly("Track 9", "Track 0", "Track 1", "Track 2", "Track 3", "Track 4",
+				"Track 5", "Track 6", "Track 7", "Track 8");
+		// only the first node to touch the room holds its state
+		assertThat(ownedRooms(nodeA)).isEqualTo(1);
+		assertThat(ownedRooms(nodeB)).isZero();
+
+		nodeA.getBean(QueueFlusher.class).flushAll();
+		nodeB.getBean(QueueFlusher.class).flushAll();
+		long persisted = nodeB.getBean(QueueItemRepository.class).countByRoomAndStatus(
+				nodeB.getBean(RoomRepository.class).findByCode(code).orElseThrow(), QueueItemStatus.QUEUED);
+		assertThat(persisted).isEqualTo(10);
+	}
+
+	@Test
+	void nodeThatLostTheLeaseDropsItsPendingChanges() {
+		RestClient nodeARest = RestClient.create("http://localhost:" + port(nodeA));
+		RestClient nodeBRest = RestClient.create("http://localhost:" + port(nodeB));
+		JsonNode room = nodeARest.post().uri("/rooms")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(Map.of("hostDisplayName", "Lease Host"))
+				.retrieve()
+				.body(JsonNode.class);
+		String code = room.get("roomCode").asText();
+		String authorization = "Bearer " + room.get("token").asText();
+		UUID roomId = nodeB.getBean(RoomRepository.class).findByCode(code).orElseThrow().getId();
+
+		enqueue(nodeARest, code, authorization, "Stale Track");
+		assertThat(ownedRooms(nodeA)).isEqualTo(1);
+
+		// node A stalls past its lease: the lease expires and node B takes the room over from Postgres
+		nodeB.getBean(StringRedisTemplate.class).delete("room:" + roomId + ":owner");
+		enqueue(nodeBRest, code, authorization, "Fresh Track");
+		assertThat(ownedRooms(nodeB)).isEqualTo(1);
+
+		// A's changes were built on the revision still stored, so only the lease check keeps them out
+		nodeA.getBean(QueueFlusher.class).flushAll();
+		nodeB.getBean(QueueFlusher.class).flushAll();
+
+		assertThat(ownedRooms(nodeA)).isZero();
+		assertThat(nodeA.getBean(RoomQueueStore.class).isLoaded(roomId)).isFalse();
+		Room stored = nodeB.getBean(RoomRepository.class).findByCode(code).orElseThrow();
+		assertThat(stored.getQueueRevision()).isEqualTo(1);
+		assertThat(nodeB.getBean(QueueItemRepository.class).findActiveRowsByRoomId(stored.getId()))
+				.extracting(QueueItemRow::title)
+				.containsExactly("Fresh Track");
+		// node A now forwards the room to its new owner
+		assertThat(titles(queue(nodeARest, code, authorization))).containsExactly("Fresh Track");
+	}
+
+	private static void enqueue(RestClient node, String code, String authorization, String title) {
+		node.post().uri("/rooms/{code}/queue", code)
+				.header("Authorization", authorization)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(new QueueAddRequest(title.toLowerCase().replace(' ', '-'), title, 200, null))
+				.retrieve()
+				.toBodilessEntity();
+	}
+
+	private static JsonNode queue(RestClient node, String code, String authorization) {
+		return node.get().uri("/rooms/{code}/queue", code)
+				.header("Authorization", authorization)
+				.retrieve()
+				.body(JsonNode.class);
+	}
+
+	private static List<String> titles(JsonNode queue) {
+		List<String> titles = new ArrayList<>();
+		queue.get("items").forEach(item -> titles.add(item.get("title").asText()));
+		return titles;
+	}
+
+	private static double ownedRooms(ConfigurableApplicationContext node) {
+		return node.getBean(MeterRegistry.class).get("jookbox.rooms.owned").gauge().value();
+	}
+
+	private static ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(JookboxApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + postgres.getJdbcUrl(),
+				"--spring.datasource.username=" + postgres.getUsername(),
+				"--spring.datasource.password=" + postgres.getPassword(),
+				"--spring.data.redis.host=" + redis.getHost(),
+				"--spring.data.redis.port=" + redis.getMappedPort(6379),
+				"--security.jwt.secret=jookbox-relay-test-secret-0123456789abcdef",
+				"--jookbox.broker.relay=redis",
+				"--jookbox.queue.flush-interval-ms=3600000");
+	}
+
+	private static int port(ConfigurableApplicationContext node) {
+		return ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+	}
+
+	/**
+	 * The SUBSCRIBE frame is handled asynchronously, so wait until the node has joined the room's channel.
+	 */
+	private static void awaitRelayListening(ConfigurableApplicationContext node) throws InterruptedException {
+		MeterRegistry registry = node.getBean(MeterRegistry.class);
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (registry.get("jookbox.broker.relay.rooms").gauge().value() < 1) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+	}
+
+	private record Frame(String eventId, JsonNode body) {
+	}
+}
@@ -0,0 +1,49 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.service.RoomService;
+import com.dev.jookbox.web.dto.RoomCreationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creates rooms until {@value #FILL} of the {@value #CODE_SPACE} possible codes are taken and checks that every
+ * code is well-formed and handed out once, including the last ones, which need inline refills of a nearly
+ * exhausted code space.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		TestcontainersConfiguration.JWT_SECRET,
+		"jookbox.rooms.code-alphabet=ABCDEFGH",
+		"jookbox.rooms.code-length=3",
+		"jookbox.rooms.code-pool-size=64",
+		"jookbox.rooms.code-pool-batch=256"
+})
+class RoomCodePoolFillTests {
+
+	private static final int CODE_SPACE = 512;
+
+	private static final int FILL = 480;
+
+	@Autowired
+	private RoomService roomService;
+
+	@Test
+	void codesStayUniqueWhileTheCodeSpaceFills() {
+		Set<String> codes = new HashSet<>();
+		for (int i = 0; i < FILL; i++) {
+			String code = roomService.createRoom(new RoomCreationRequest("host-" + i)).roomCode();
+			assertThat(code).hasSize(3).matches("[A-H]{3}");
+			assertThat(codes.add(code)).as("code %s handed out twice", code).isTrue();
+		}
+
+		assertThat(codes).hasSize(FILL);
+	}
+
+}
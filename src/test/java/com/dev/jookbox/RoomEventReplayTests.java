@@ -0,0 +1,191 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.service.events.RoomEventLog;
+import com.dev.jookbox.service.events.RoomEventType;
+import com.dev.jookbox.web.dto.RoomEventView;
+import com.dev.jookbox.web.dto.RoomEventsResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Replays room events from the Redis stream through {@link RoomEventLog#readAfter} and
+ * {@code GET /rooms/{code}/events}: the exclusive {@code after} id, a trimmed id and a client more than 500 events
+ * behind both asking for a snapshot, and the {@value RoomEventLog#EVENT_ID_HEADER} header on broadcast frames
+ * matching the stream.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = TestcontainersConfiguration.JWT_SECRET)
+@AutoConfigureMockMvc
+class RoomEventReplayTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private RoomEventLog eventLog;
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Autowired
+	@Qualifier("brokerChannel")
+	private AbstractSubscribableChannel brokerChannel;
+
+	private final List<Message<?>> broadcast = new CopyOnWriteArrayList<>();
+
+	private final ChannelInterceptor recorder = new ChannelInterceptor() {
+		@Override
+		public Message<?> preSend(Message<?> message, MessageChannel channel) {
+			broadcast.add(message);
+			return message;
+		}
+	};
+
+	@AfterEach
+	void stopRecording() {
+		brokerChannel.removeInterceptor(recorder);
+	}
+
+	@Test
+	void replayStartsAfterTheGivenId() {
+		String room = roomCode();
+		List<String> ids = publish(room, 3);
+
+		RoomEventsResponse replay = eventLog.readAfter(room, ids.get(0));
+
+		assertThat(replay.snapshotRequired()).isFalse();
+		assertThat(replay.events()).extracting(RoomEventView::id).containsExactly(ids.get(1), ids.get(2));
+		assertThat(replay.events()).extracting(RoomEventView::type).containsOnly(RoomEventType.QUEUE.topic());
+		assertThat(eventLog.readAfter(room, ids.get(2)).events()).isEmpty();
+	}
+
+	@Test
+	void aTrimmedIdAsksForASnapshot() {
+		String room = roomCode();
+		List<String> ids = publish(room, 5);
+		redisTemplate.opsForStream().trim("events:" + room, 2);
+
+		RoomEventsResponse replay = eventLog.readAfter(room, ids.get(0));
+
+		assertThat(replay.snapshotRequired()).isTrue();
+		assertThat(replay.events()).isEmpty();
+		assertThat(eventLog.readAfter(room, ids.get(3)).events()).extracting(RoomEventView::id)
+				.containsExactly(ids.get(4));
+	}
+
+	@Test
+	void moreThanFiveHundredMissedEventsAskForASnapshot() {
+		String room = roomCode();
+		List<String> ids = publish(room, 502);
+
+		RoomEventsResponse oneTooMany = eventLog.readAfter(room, ids.get(0));
+		assertThat(oneTooMany.snapshotRequired()).isTrue();
+		assertThat(oneTooMany.events()).isEmpty();
+
+		RoomEventsResponse exactlyTheLimit = eventLog.readAfter(room, ids.get(1));
+		assertThat(exactlyTheLimit.snapshotRequired()).isFalse();
+		assertThat(exactlyTheLimit.events()).hasSize(500);
+	}
+
+	@Test
+	void broadcastFramesCarryTheirStreamId() {
+		String room = roomCode();
+		brokerChannel.addInterceptor(recorder);
+
+		eventLog.publish(room, RoomEventType.PLAYBACK, Map.of("positionMs", 1000));
+
+		List<MapRecord<String, Object, Object>> stored =
+				redisTemplate.opsForStream().range("events:" + room, Range.unbounded());
+		assertThat(stored).hasSize(1);
+		assertThat(broadcast).hasSize(1);
+		SimpMessageHeaderAccessor frame = SimpMessageHeaderAccessor.wrap(broadcast.get(0));
+		assertThat(frame.getDestination()).isEqualTo("/topic/rooms/" + room + "/playback");
+		assertThat(frame.getFirstNativeHeader(RoomEventLog.EVENT_ID_HEADER))
+				.isEqualTo(stored.get(0).getId().getValue());
+	}
+
+	@Test
+	void membersReplayOverRest() throws Exception {
+		JsonNode created = createRoom();
+		String room = created.get("roomCode").asText();
+		String token = created.get("token").asText();
+		List<String> ids = publish(room, 2);
+
+		mockMvc.perform(get("/rooms/{code}/events", room)
+						.header("Authorization", "Bearer " + token)
+						.param("after", ids.get(0)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.snapshotRequired").value(false))
+				.andExpect(jsonPath("$.events.length()").value(1))
+				.andExpect(jsonPath("$.events[0].id").value(ids.get(1)))
+				.andExpect(jsonPath("$.events[0].data.seq").value(1));
+
+		mockMvc.perform(get("/rooms/{code}/events", room)
+						.header("Authorization", "Bearer " + token)
+						.param("after", "not-an-id"))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/rooms/{code}/events", roomCode())
+						.header("Authorization", "Bearer " + token)
+						.param("after", ids.get(0)))
+				.andExpect(status().isForbidden());
+	}
+
+	private List<String> publish(String roomCode, int count) {
+		for (int i = 0; i < count; i++) {
+			eventLog.publish(roomCode, RoomEventType.QUEUE, Map.of("seq", i));
+		}
+		List<MapRecord<String, Object, Object>> records =
+				redisTemplate.opsForStream().range("events:" + roomCode, Range.unbounded());
+		List<String> ids = new ArrayList<>();
+		records.forEach(record -> ids.add(record.getId().getValue()));
+		assertThat(ids).hasSize(count);
+		return ids;
+	}
+
+	private JsonNode createRoom() throws Exception {
+		String body = mockMvc.perform(post("/rooms")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("hostDisplayName", "Replay Host"))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private static String roomCode() {
+		return "E" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+	}
+
+}
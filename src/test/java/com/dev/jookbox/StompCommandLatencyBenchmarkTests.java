@@ -0,0 +1,125 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times {@value #ACTIONS} sequential enqueues as REST calls against the same enqueues as STOMP SEND frames
+ * acknowledged by RECEIPT, over one already-authenticated socket. Tagged {@code benchmark}: run with
+ * {@code ./gradlew benchmark}, not part of {@code test}; {@link StompRoomCommandTests} covers the commands
+ * themselves.
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "security.jwt.secret=jookbox-benchmark-secret-0123456789abcdef")
+class StompCommandLatencyBenchmarkTests {
+
+	private static final int ACTIONS = 200;
+
+	private static final int WARMUP = 20;
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void stompCommandsVersusRestCalls() throws Exception {
+		RestClient rest = RestClient.create("http://localhost:" + port);
+		JsonNode room = rest.post().uri("/rooms")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(Map.of("hostDisplayName", "Benchmark Host"))
+				.retrieve()
+				.body(JsonNode.class);
+		String code = room.get("roomCode").asText();
+		String token = room.get("token").asText();
+
+		StompHeaders connectHeaders = new StompHeaders();
+		connectHeaders.add("Authorization", "Bearer " + token);
+		WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+		stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+		StompSession session = stompClient
+				.connectAsync("ws://localhost:" + port + "/ws", new WebSocketHttpHeaders(), connectHeaders,
+						new StompSessionHandlerAdapter() {
+						})
+				.get(5, TimeUnit.SECONDS);
+		session.setAutoReceipt(true);
+
+		for (int i = 0; i < WARMUP; i++) {
+			restEnqueue(rest, code, token, "warmup-rest-" + i);
+			stompEnqueue(session, code, "warmup-stomp-" + i);
+		}
+
+		long[] restNanos = new long[ACTIONS];
+		for (int i = 0; i < ACTIONS; i++) {
+			long start = System.nanoTime();
+			restEnqueue(rest, code, token, "rest-" + i);
+			restNanos[i] = System.nanoTime() - start;
+		}
+
+		long[] stompNanos = new long[ACTIONS];
+		for (int i = 0; i < ACTIONS; i++) {
+			long start = System.nanoTime();
+			stompEnqueue(session, code, "stomp-" + i);
+			stompNanos[i] = System.nanoTime() - start;
+		}
+		session.disconnect();
+
+		System.out.printf("room command latency over %d enqueues: REST p50 = %.2f ms, p99 = %.2f ms;"
+						+ " STOMP p50 = %.2f ms, p99 = %.2f ms%n",
+				ACTIONS, percentile(restNanos, 50), percentile(restNanos, 99),
+				percentile(stompNanos, 50), percentile(stompNanos, 99));
+
+		JsonNode queue = rest.get().uri("/rooms/{code}/queue", code)
+				.header("Authorization", "Bearer " + token)
+				.retrieve()
+				.body(JsonNode.class);
+		assertThat(queue.get("items").size()).isEqualTo(2 * (ACTIONS + WARMUP));
+	}
+
+	private static void restEnqueue(RestClient rest, String code, String token, String videoId) {
+		rest.post().uri("/rooms/{code}/queue", code)
+				.header("Authorization", "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(track(videoId))
+				.retrieve()
+				.toBodilessEntity();
+	}
+
+	private static void stompEnqueue(StompSession session, String code, String videoId) throws InterruptedException {
+		CountDownLatch acknowledged = new CountDownLatch(1);
+		session.send("/app/rooms/" + code + "/queue/add", track(videoId)).addReceiptTask(acknowledged::countDown);
+		assertThat(acknowledged.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private static QueueAddRequest track(String videoId) {
+		return new QueueAddRequest(videoId, "Track " + videoId, 180, null);
+	}
+
+	private static double percentile(long[] nanos, int percentile) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+		return sorted[index] / 1_000_000.0;
+	}
+}
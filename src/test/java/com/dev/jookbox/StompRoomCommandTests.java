@@ -0,0 +1,167 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.web.dto.PlayRequest;
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.dev.jookbox.web.dto.QueueMoveRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives room commands over one authenticated STOMP session: add, move, vote and play are each acknowledged by a
+ * RECEIPT and show up in the REST reads, and a failing command is answered on {@code /user/queue/errors} with the
+ * receipt id of its frame instead.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = TestcontainersConfiguration.JWT_SECRET)
+class StompRoomCommandTests {
+
+	@LocalServerPort
+	private int port;
+
+	private RestClient rest;
+
+	private String code;
+
+	private String token;
+
+	private StompSession session;
+
+	private final BlockingQueue<Map<?, ?>> errors = new LinkedBlockingQueue<>();
+
+	@BeforeEach
+	void connect() throws Exception {
+		rest = RestClient.create("http://localhost:" + port);
+		JsonNode room = rest.post().uri("/rooms")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(Map.of("hostDisplayName", "Stomp Host"))
+				.retrieve()
+				.body(JsonNode.class);
+		code = room.get("roomCode").asText();
+		token = room.get("token").asText();
+
+		StompHeaders connectHeaders = new StompHeaders();
+		connectHeaders.add("Authorization", "Bearer " + token);
+		WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+		stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+		session = stompClient
+				.connectAsync("ws://localhost:" + port + "/ws", new WebSocketHttpHeaders(), connectHeaders,
+						new StompSessionHandlerAdapter() {
+						})
+				.get(5, TimeUnit.SECONDS);
+		session.subscribe("/user/queue/errors", new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return Map.class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				errors.add((Map<?, ?>) payload);
+			}
+		});
+		session.setAutoReceipt(true);
+	}
+
+	@AfterEach
+	void disconnect() {
+		session.disconnect();
+	}
+
+	@Test
+	void commandsAreAcknowledgedAndApplied() throws Exception {
+		send("/queue/add", track("a"));
+		send("/queue/add", track("b"));
+		send("/queue/add", track("c"));
+		assertThat(titles()).containsExactly("Track a", "Track b", "Track c");
+
+		UUID c = itemId(2);
+		send("/queue/" + c + "/move", new QueueMoveRequest(0, null));
+		assertThat(titles()).containsExactly("Track c", "Track a", "Track b");
+
+		// the host's vote decides on its own
+		send("/queue/" + itemId(2) + "/vote-remove", Map.of());
+		assertThat(titles()).containsExactly("Track c", "Track a");
+
+		send("/playback/play", new PlayRequest(c, 0));
+		JsonNode playback = rest.get().uri("/rooms/{code}/playback", code)
+				.header("Authorization", "Bearer " + token)
+				.retrieve()
+				.body(JsonNode.class);
+		assertThat(playback.get("playing").asBoolean()).isTrue();
+		assertThat(playback.get("nowPlayingQueueItemId").asText()).isEqualTo(c.toString());
+		assertThat(errors).isEmpty();
+	}
+
+	@Test
+	void aFailedCommandReportsItsReceiptIdOnTheErrorQueue() throws Exception {
+		send("/queue/add", track("a"));
+
+		StompSession.Receiptable failing = session.send("/app/rooms/" + code + "/queue/" + UUID.randomUUID()
+				+ "/vote-skip", Map.of());
+		CountDownLatch acknowledged = new CountDownLatch(1);
+		failing.addReceiptTask(acknowledged::countDown);
+
+		Map<?, ?> error = errors.poll(5, TimeUnit.SECONDS);
+		assertThat(error).isNotNull();
+		assertThat(error.get("status")).isEqualTo(404);
+		assertThat(error.get("message")).isEqualTo("Queue item not found");
+		assertThat(error.get("receiptId")).isEqualTo(failing.getReceiptId());
+		assertThat(acknowledged.getCount()).isEqualTo(1);
+	}
+
+	private void send(String action, Object payload) throws InterruptedException {
+		CountDownLatch acknowledged = new CountDownLatch(1);
+		session.send("/app/rooms/" + code + action, payload).addReceiptTask(acknowledged::countDown);
+		assertThat(acknowledged.await(5, TimeUnit.SECONDS)).as("receipt for %s", action).isTrue();
+	}
+
+	private JsonNode queue() {
+		return rest.get().uri("/rooms/{code}/queue", code)
+				.header("Authorization", "Bearer " + token)
+				.retrieve()
+				.body(JsonNode.class);
+	}
+
+	private List<String> titles() {
+		List<String> titles = new ArrayList<>();
+		queue().get("items").forEach(item -> titles.add(item.get("title").asText()));
+		return titles;
+	}
+
+	private UUID itemId(int index) {
+		return UUID.fromString(queue().get("items").get(index).get("id").asText());
+	}
+
+	private static QueueAddRequest track(String name) {
+		return new QueueAddRequest("video-" + name, "Track " + name, 180, null);
+	}
+
+}
@@ -10,6 +10,11 @@ import org.testcontainers.utility.DockerImageName;
 @TestConfiguration(proxyBeanMethods = false)
 class TestcontainersConfiguration {
 
+	/**
+	 * JWT secret for tests that boot the application; the main configuration leaves it to the environment.
+	 */
+	static final String JWT_SECRET = "security.jwt.secret=jookbox-test-secret-0123456789abcdef";
+
 	@Bean
 	@ServiceConnection
 	PostgreSQLContainer<?> postgresContainer() {
@@ -0,0 +1,166 @@
+package com.dev.jookbox;
+
+import com.dev.jookbox.domain.Room;
+import com.dev.jookbox.domain.VoteType;
+import com.dev.jookbox.repository.RoomRepository;
+import com.dev.jookbox.service.membership.MemberCounter;
+import com.dev.jookbox.service.queue.QueueFlusher;
+import com.dev.jookbox.service.vote.VoteAuditWriter;
+import com.dev.jookbox.service.vote.VoteTally;
+import com.dev.jookbox.web.dto.QueueAddRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs {@code vote-tally.lua} through {@link VoteTally} against the Redis container and writes audit rows through
+ * {@link VoteAuditWriter} into Postgres: the majority threshold, duplicate votes, seeding a missing member
+ * counter, skipped duplicate rows and the row-by-row fallback after a failed batch.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		TestcontainersConfiguration.JWT_SECRET,
+		// the tests flush the audit writer themselves
+		"jookbox.votes.audit-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class VoteTallyAuditTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private VoteTally voteTally;
+
+	@Autowired
+	private VoteAuditWriter auditWriter;
+
+	@Autowired
+	private MemberCounter memberCounter;
+
+	@Autowired
+	private QueueFlusher queueFlusher;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void theVoteThatReachesAMajorityIsReportedOnce() {
+		UUID roomId = UUID.randomUUID();
+		UUID item = UUID.randomUUID();
+		memberCounter.initialize(roomId, 4);
+
+		assertThat(voteTally.record(roomId, item, VoteType.SKIP, user("a"))).isEqualTo(VoteTally.Result.RECORDED);
+		assertThat(voteTally.record(roomId, item, VoteType.SKIP, user("a"))).isEqualTo(VoteTally.Result.DUPLICATE);
+		assertThat(voteTally.record(roomId, item, VoteType.SKIP, user("b"))).isEqualTo(VoteTally.Result.RECORDED);
+		assertThat(voteTally.record(roomId, item, VoteType.SKIP, user("c")))
+				.isEqualTo(VoteTally.Result.THRESHOLD_REACHED);
+		assertThat(voteTally.record(roomId, item, VoteType.SKIP, user("d"))).isEqualTo(VoteTally.Result.RECORDED);
+		// each vote type has its own tally
+		assertThat(voteTally.record(roomId, item, VoteType.REMOVE, user("a"))).isEqualTo(VoteTally.Result.RECORDED);
+	}
+
+	@Test
+	void aMissingMemberCounterIsSeededFromMemberships() throws Exception {
+		JsonNode created = createRoom();
+		Room room = room(created);
+		redisTemplate.delete(MemberCounter.key(room.getId()));
+
+		// the host is the only member, so one vote is a majority
+		assertThat(voteTally.record(room.getId(), UUID.randomUUID(), VoteType.SKIP, room.getHost().getId()))
+				.isEqualTo(VoteTally.Result.THRESHOLD_REACHED);
+		assertThat(redisTemplate.opsForValue().get(MemberCounter.key(room.getId()))).isEqualTo("1");
+	}
+
+	@Test
+	void aRepeatedVoteIsAuditedOnce() throws Exception {
+		JsonNode created = createRoom();
+		UUID item = enqueue(created);
+		UUID host = room(created).getHost().getId();
+
+		auditWriter.append(item, host, VoteType.SKIP, OffsetDateTime.now());
+		auditWriter.append(item, host, VoteType.SKIP, OffsetDateTime.now());
+		auditWriter.flush();
+		auditWriter.append(item, host, VoteType.SKIP, OffsetDateTime.now());
+		auditWriter.flush();
+
+		assertThat(votes(item, host)).isEqualTo(1);
+	}
+
+	@Test
+	void aBadRowDoesNotHoldBackTheRestOfItsBatch() throws Exception {
+		JsonNode created = createRoom();
+		UUID item = enqueue(created);
+		UUID host = room(created).getHost().getId();
+		UUID unknownUser = UUID.randomUUID();
+
+		auditWriter.append(item, host, VoteType.SKIP, OffsetDateTime.now());
+		auditWriter.append(item, unknownUser, VoteType.SKIP, OffsetDateTime.now());
+		auditWriter.append(item, host, VoteType.REMOVE, OffsetDateTime.now());
+		auditWriter.flush();
+
+		assertThat(votes(item, host)).isEqualTo(2);
+		assertThat(votes(item, unknownUser)).isZero();
+	}
+
+	private long votes(UUID item, UUID user) {
+		Long count = jdbcTemplate.queryForObject(
+				"select count(*) from votes where queue_item_id = ? and user_id = ?", Long.class, item, user);
+		return count == null ? 0 : count;
+	}
+
+	private JsonNode createRoom() throws Exception {
+		String body = mockMvc.perform(post("/rooms")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("hostDisplayName", "Vote Host"))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private UUID enqueue(JsonNode room) throws Exception {
+		String body = mockMvc.perform(post("/rooms/{code}/queue", room.get("roomCode").asText())
+						.header("Authorization", "Bearer " + room.get("token").asText())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(new QueueAddRequest("video-1", "Track 1", 180, null))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		// audit rows reference queue_items, which the write-behind flush creates
+		queueFlusher.flushAll();
+		return UUID.fromString(objectMapper.readTree(body).get("id").asText());
+	}
+
+	private Room room(JsonNode room) {
+		return roomRepository.findByCode(room.get("roomCode").asText()).orElseThrow();
+	}
+
+	private static UUID user(String name) {
+		return UUID.nameUUIDFromBytes(name.getBytes());
+	}
+
+}
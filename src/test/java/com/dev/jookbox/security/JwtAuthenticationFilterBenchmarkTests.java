@@ -0,0 +1,183 @@
+package com.dev.jookbox.security;
+
+import com.dev.jookbox.config.JwtProperties;
+import com.dev.jookbox.domain.Capability;
+import com.dev.jookbox.domain.Membership;
+import com.dev.jookbox.domain.Role;
+import com.dev.jookbox.domain.Room;
+import com.dev.jookbox.domain.RoomRef;
+import com.dev.jookbox.domain.RoomStatus;
+import com.dev.jookbox.domain.User;
+import com.dev.jookbox.service.room.RoomDirectory;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Filter throughput for a client repeating one bearer token: the previous per-call parser build and signature
+ * check against the prebuilt parser with the verified-principal cache. Plain JUnit timing like the other
+ * benchmarks here, so the numbers are indicative only; the timing run is tagged {@code benchmark} and only runs
+ * with {@code ./gradlew benchmark}.
+ */
+class JwtAuthenticationFilterBenchmarkTests {
+
+	private static final String SECRET = "jookbox-benchmark-secret-0123456789abcdef";
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 100_000;
+
+	private static final Room ROOM = Room.builder()
+			.id(UUID.randomUUID())
+			.code("ABC123")
+			.host(User.builder().id(UUID.randomUUID()).displayName("Bench").createdAt(OffsetDateTime.now()).build())
+			.status(RoomStatus.ACTIVE)
+			.createdAt(OffsetDateTime.now())
+			.build();
+
+	private final JwtProperties properties = new JwtProperties(SECRET, "jookbox", 720, 10_000,
+			Duration.ofMinutes(1));
+
+	private final FilterChain chain = (request, response) -> {
+	};
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void cachedParseReturnsSamePrincipal() {
+		JwtService jwtService = jwtService();
+		String token = jwtService.generateToken(membership(), ROOM.getCode(), 0);
+
+		AuthenticatedMember first = jwtService.parse(token);
+		AuthenticatedMember second = jwtService.parse(token);
+
+		assertThat(second).isEqualTo(first);
+		assertThat(second.hasCapability(Capability.PLAYBACK_CONTROL)).isTrue();
+		assertThat(second.hasCapability(Capability.REORDER_QUEUE)).isTrue();
+		assertThat(second.hasCapability(Capability.REMOVE_ITEMS)).isFalse();
+	}
+
+	@Test
+	@Tag("benchmark")
+	void perCallParserVersusCachedPrincipal() throws Exception {
+		JwtService cached = jwtService();
+		JwtService perCall = new PerCallParserJwtService(properties);
+		perCall.init();
+		String token = cached.generateToken(membership(), ROOM.getCode(), 0);
+
+		MembershipEpochs epochs = mock(MembershipEpochs.class);
+		when(epochs.isCurrent(any())).thenReturn(true);
+		RoomDirectory rooms = mock(RoomDirectory.class);
+		when(rooms.find(ROOM.getCode())).thenReturn(Optional.of(
+				new RoomRef(ROOM.getId(), ROOM.getCode(), RoomStatus.ACTIVE, ROOM.getHost().getId())));
+		JwtAuthenticationFilter before = new JwtAuthenticationFilter(perCall, epochs, rooms);
+		JwtAuthenticationFilter after = new JwtAuthenticationFilter(cached, epochs, rooms);
+		run(before, token, WARMUP);
+		run(after, token, WARMUP);
+
+		long beforeNanos = run(before, token, ITERATIONS);
+		long afterNanos = run(after, token, ITERATIONS);
+
+		System.out.printf("jwt filter x%d: per-call parser %d ops/s (%d ns/op), cached principal %d ops/s (%d ns/op)%n",
+				ITERATIONS,
+				opsPerSecond(beforeNanos), beforeNanos / ITERATIONS,
+				opsPerSecond(afterNanos), afterNanos / ITERATIONS);
+	}
+
+	private long run(JwtAuthenticationFilter filter, String token, int iterations) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rooms/ABC123/queue");
+		request.addHeader("Authorization", "Bearer " + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			// OncePerRequestFilter marks the request as filtered; clear that so every iteration authenticates
+			request.clearAttributes();
+			filter.doFilter(request, response, chain);
+		}
+		long elapsed = System.nanoTime() - start;
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isInstanceOf(MemberAuthentication.class);
+		SecurityContextHolder.clearContext();
+		return elapsed;
+	}
+
+	private static long opsPerSecond(long nanos) {
+		return ITERATIONS * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+	}
+
+	private JwtService jwtService() {
+		JwtService jwtService = new JwtService(properties, new SimpleMeterRegistry());
+		jwtService.init();
+		return jwtService;
+	}
+
+	private static Membership membership() {
+		return Membership.builder()
+				.id(UUID.randomUUID())
+				.room(ROOM)
+				.user(ROOM.getHost())
+				.role(Role.HOST)
+				.capabilities(Capability.PLAYBACK_CONTROL.getMask() | Capability.REORDER_QUEUE.getMask())
+				.joinedAt(OffsetDateTime.now())
+				.build();
+	}
+
+	/**
+	 * The parse path as it was before the prebuilt parser and cache: a new parser and a full verification per call,
+	 * with the capabilities claim expanded into a set of names.
+	 */
+	private static final class PerCallParserJwtService extends JwtService {
+
+		private final JwtProperties properties;
+		private final SecretKey signingKey;
+
+		PerCallParserJwtService(JwtProperties properties) {
+			super(properties, new SimpleMeterRegistry());
+			this.properties = properties;
+			this.signingKey = Keys.hmacShaKeyFor(properties.secret().getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public AuthenticatedMember parse(String token) {
+			Claims claims = Jwts.parserBuilder()
+					.requireIssuer(properties.issuer())
+					.setSigningKey(signingKey)
+					.build()
+					.parseClaimsJws(token)
+					.getBody();
+			Set<String> caps = Capability.names(claims.get("caps", Integer.class)).stream()
+					.collect(Collectors.toSet());
+			return new AuthenticatedMember(
+					UUID.fromString(claims.get("membershipId", String.class)),
+					UUID.fromString(claims.getSubject()),
+					UUID.fromString(claims.get("roomId", String.class)),
+					claims.get("roomCode", String.class),
+					Role.valueOf(claims.get("role", String.class)),
+					Capability.parseMask(caps),
+					0);
+		}
+	}
+}
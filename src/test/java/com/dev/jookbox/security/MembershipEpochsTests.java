@@ -0,0 +1,95 @@
+package com.dev.jookbox.security;
+
+import com.dev.jookbox.config.JwtProperties;
+import com.dev.jookbox.domain.Role;
+import com.dev.jookbox.web.RoomBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MembershipEpochsTests {
+
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, String> values = mock(ValueOperations.class);
+
+	private final UUID membershipId = UUID.randomUUID();
+
+	@Test
+	void aCapabilityChangeSupersedesOlderTokensAndAcceptsTheRefreshedOne() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(values.get(anyString())).thenReturn(null);
+		when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList())).thenReturn(1L);
+		MembershipEpochs epochs = epochs(Duration.ofMinutes(1));
+		assertThat(epochs.isCurrent(member(0))).isTrue();
+
+		long advanced = epochs.advance(membershipId);
+
+		assertThat(advanced).isEqualTo(1);
+		assertThat(epochs.isCurrent(member(0))).isFalse();
+		assertThat(epochs.isCurrent(member(1))).isTrue();
+	}
+
+	@Test
+	void aFreshReadReplacesTheCachedEpoch() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(values.get(anyString())).thenReturn("3", "1");
+		MembershipEpochs epochs = epochs(Duration.ZERO);
+
+		assertThat(epochs.isCurrent(member(1))).isFalse();
+		// Redis went back to 1 (restored from a backup, say): the refreshed token must not stay locked out
+		assertThat(epochs.isCurrent(member(1))).isTrue();
+	}
+
+	@Test
+	void anUnknownEpochIsRefusedWhileRedisIsUnreachable() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(values.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+		MembershipEpochs epochs = epochs(Duration.ofMinutes(1));
+
+		assertThatThrownBy(() -> epochs.isCurrent(member(5))).isInstanceOf(RoomBusyException.class);
+	}
+
+	@Test
+	void theLastKnownEpochOutlivesTheRecheckWhileRedisIsUnreachable() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(values.get(anyString()))
+				.thenReturn("2")
+				.thenThrow(new RedisConnectionFailureException("down"));
+		// a zero recheck interval makes every check after the first go back to Redis
+		MembershipEpochs epochs = epochs(Duration.ZERO);
+
+		assertThat(epochs.isCurrent(member(2))).isTrue();
+		assertThat(epochs.isCurrent(member(1))).isFalse();
+		assertThat(epochs.isCurrent(member(2))).isTrue();
+	}
+
+	private MembershipEpochs epochs(Duration recheck) {
+		return new MembershipEpochs(redisTemplate, mock(RedisMessageListenerContainer.class),
+				mock(ApplicationEventPublisher.class),
+				new JwtProperties("secret", "jookbox", 720, 10_000, recheck),
+				new SimpleMeterRegistry());
+	}
+
+	private AuthenticatedMember member(long epoch) {
+		return new AuthenticatedMember(membershipId, UUID.randomUUID(), UUID.randomUUID(), "ROOM1", Role.GUEST, 0,
+				epoch);
+	}
+}
@@ -0,0 +1,102 @@
+package com.dev.jookbox.service.events;
+
+import com.dev.jookbox.config.NodeIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RedisRoomBroadcasterTests {
+
+	private static final ChannelTopic ROOM1 = new ChannelTopic("room-events:ROOM1");
+
+	private final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+
+	private final RedisRoomBroadcaster broadcaster = new RedisRoomBroadcaster(mock(StringRedisTemplate.class),
+			listenerContainer, mock(SimpMessagingTemplate.class), new NodeIdentity(), new SimpleMeterRegistry());
+
+	@Test
+	void theChannelIsSubscribedOnTheFirstSubscriptionAndDroppedAfterTheLast() {
+		broadcaster.onSubscribe(subscribe("s1", "sub-1", "/topic/rooms/ROOM1/queue"));
+		broadcaster.onSubscribe(subscribe("s1", "sub-2", "/topic/rooms/ROOM1/playback"));
+		broadcaster.onSubscribe(subscribe("s2", "sub-1", "/topic/rooms/ROOM1/queue"));
+		verify(listenerContainer, times(1)).addMessageListener(broadcaster, ROOM1);
+
+		broadcaster.onUnsubscribe(unsubscribe("s1", "sub-1"));
+		broadcaster.onDisconnect(new SessionDisconnectEvent(this, message(StompCommand.DISCONNECT, "s2"), "s2",
+				CloseStatus.NORMAL));
+		verify(listenerContainer, never()).removeMessageListener(any(), any(ChannelTopic.class));
+
+		broadcaster.onUnsubscribe(unsubscribe("s1", "sub-2"));
+		verify(listenerContainer, times(1)).removeMessageListener(broadcaster, ROOM1);
+
+		broadcaster.onSubscribe(subscribe("s3", "sub-1", "/topic/rooms/ROOM1/queue"));
+		verify(listenerContainer, times(2)).addMessageListener(broadcaster, ROOM1);
+	}
+
+	@Test
+	void concurrentSubscriptionsListenOnce() throws Exception {
+		ExecutorService sessions = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> subscribed = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String sessionId = "s" + i;
+				subscribed.add(sessions.submit(() ->
+						broadcaster.onSubscribe(subscribe(sessionId, "sub-1", "/topic/rooms/ROOM1/queue"))));
+			}
+			for (Future<?> future : subscribed) {
+				future.get();
+			}
+		} finally {
+			sessions.shutdownNow();
+		}
+		verify(listenerContainer, times(1)).addMessageListener(eq(broadcaster), eq(ROOM1));
+	}
+
+	private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.setDestination(destination);
+		return new SessionSubscribeEvent(this, MessageBuilder.createMessage(new byte[0],
+				accessor.getMessageHeaders()));
+	}
+
+	private SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		return new SessionUnsubscribeEvent(this, MessageBuilder.createMessage(new byte[0],
+				accessor.getMessageHeaders()));
+	}
+
+	private static Message<byte[]> message(StompCommand command, String sessionId) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+		accessor.setSessionId(sessionId);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.dev.jookbox.service.playback;
+
+import com.dev.jookbox.config.PlaybackProperties;
+import com.dev.jookbox.domain.PlaybackState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutoAdvanceSchedulerTests {
+
+	private final AutoAdvanceScheduler scheduler = new AutoAdvanceScheduler(
+			new PlaybackProperties(100, Duration.ofMinutes(1), Duration.ofMillis(10), 8, Duration.ofMillis(200)),
+			new SimpleMeterRegistry());
+
+	@AfterEach
+	void shutdown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void firedTimerStopsTrackingBeforeItsCallbackRuns() throws InterruptedException {
+		CountDownLatch fired = new CountDownLatch(1);
+		AtomicBoolean trackingInCallback = new AtomicBoolean(true);
+		AtomicLong firedVersion = new AtomicLong();
+
+		scheduler.track("ROOM1", endingSoon(7), 1, version -> {
+			trackingInCallback.set(scheduler.isTracking("ROOM1"));
+			firedVersion.set(version);
+			fired.countDown();
+		});
+		assertThat(scheduler.isTracking("ROOM1")).isTrue();
+
+		assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(trackingInCallback.get()).isFalse();
+		assertThat(firedVersion.get()).isEqualTo(7);
+		assertThat(scheduler.isTracking("ROOM1")).isFalse();
+	}
+
+	@Test
+	void callbackCanArmTheNextTrack() throws InterruptedException {
+		CountDownLatch rearmed = new CountDownLatch(1);
+
+		scheduler.track("ROOM2", endingSoon(1), 1, version -> {
+			scheduler.track("ROOM2", endingSoon(version + 1), 60, next -> {
+			});
+			rearmed.countDown();
+		});
+
+		assertThat(rearmed.await(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(scheduler.isTracking("ROOM2")).isTrue();
+		scheduler.cancel("ROOM2");
+		assertThat(scheduler.isTracking("ROOM2")).isFalse();
+	}
+
+	/**
+	 * A playing one-second track 50 ms before its end.
+	 */
+	private static PlaybackState endingSoon(long version) {
+		return PlaybackState.builder()
+				.roomId(UUID.randomUUID())
+				.nowPlayingQueueItemId(UUID.randomUUID())
+				.positionMs(950)
+				.playing(true)
+				.lastUpdateTs(Instant.now())
+				.durationMs(1000)
+				.version(version)
+				.build();
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.dev.jookbox.service.playback;
+
+import com.dev.jookbox.domain.PlaybackState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulates clients whose clocks are skewed by up to ±5 s and drift by up to ±100 ppm, talking to the server over
+ * links with 10-150 ms of random one-way latency. Each client estimates the playing position a few seconds after
+ * every playback frame, first by extrapolating {@code lastUpdateTs} on its own clock and then with the time-sync
+ * offset plus {@code effectivePositionMs}/{@code serverTime}. Time is virtual, so the run is deterministic.
+ */
+class ClockSyncSimulationTests {
+
+	private static final int CLIENTS = 200;
+	private static final int SYNC_ROUNDS = 8;
+	private static final int FRAMES = 20;
+
+	private final Random random = new Random(20_240_601L);
+
+	@Test
+	void syncedClientsStayWithinLinkJitterOfTheServer() {
+		long naiveTotal = 0;
+		long naiveWorst = 0;
+		long syncedTotal = 0;
+		long syncedWorst = 0;
+		int samples = 0;
+
+		for (int c = 0; c < CLIENTS; c++) {
+			SkewedClock clock = new SkewedClock(random.nextLong(-5_000, 5_001), random.nextDouble(-100e-6, 100e-6));
+			long serverNow = 1_760_000_000_000L + random.nextLong(0, 60_000);
+			long offset = estimateOffset(clock, serverNow);
+			serverNow += SYNC_ROUNDS * 400L;
+
+			PlaybackState state = PlaybackState.builder()
+					.roomId(UUID.randomUUID())
+					.nowPlayingQueueItemId(UUID.randomUUID())
+					.positionMs(random.nextInt(0, 120_000))
+					.playing(true)
+					.lastUpdateTs(Instant.ofEpochMilli(serverNow - random.nextLong(0, 30_000)))
+					.build();
+
+			for (int f = 0; f < FRAMES; f++) {
+				long sentAt = serverNow + f * 1_000L;
+				long effective = state.effectivePositionMs(Instant.ofEpochMilli(sentAt));
+				long observedAt = sentAt + latency() + random.nextLong(0, 3_000);
+				long truePosition = state.effectivePositionMs(Instant.ofEpochMilli(observedAt));
+				long clientNow = clock.read(observedAt);
+
+				long naive = state.getPositionMs() + (clientNow - state.getLastUpdateTs().toEpochMilli());
+				long synced = effective + (clientNow + offset - sentAt);
+
+				long naiveError = Math.abs(naive - truePosition);
+				long syncedError = Math.abs(synced - truePosition);
+				naiveTotal += naiveError;
+				syncedTotal += syncedError;
+				naiveWorst = Math.max(naiveWorst, naiveError);
+				syncedWorst = Math.max(syncedWorst, syncedError);
+				samples++;
+			}
+		}
+
+		long naiveMean = naiveTotal / samples;
+		long syncedMean = syncedTotal / samples;
+		// the skew alone puts naive clients seconds off, up to the full ±5 s plus latency and drift
+		assertThat(naiveMean).isGreaterThan(1_000);
+		assertThat(naiveWorst).isGreaterThan(5_000);
+		// synced clients are only off by the offset estimate's error, at most half the 140 ms latency spread
+		assertThat(syncedMean).isLessThan(25);
+		assertThat(syncedWorst).isLessThan(100);
+		assertThat(syncedMean).isLessThan(naiveMean / 10);
+	}
+
+	/**
+	 * Client side of the exchange with {@code /app/time}: keep the round with the smallest RTT, whose offset error
+	 * is bounded by half the latency asymmetry of that round.
+	 */
+	private long estimateOffset(SkewedClock clock, long serverNow) {
+		long bestRtt = Long.MAX_VALUE;
+		long bestOffset = 0;
+		for (int round = 0; round < SYNC_ROUNDS; round++) {
+			long sendAt = serverNow + round * 400L;
+			long t0 = clock.read(sendAt);
+			long t1 = sendAt + latency();
+			long t2 = t1 + 1;
+			long t3 = clock.read(t2 + latency());
+			long rtt = (t3 - t0) - (t2 - t1);
+			if (rtt < bestRtt) {
+				bestRtt = rtt;
+				bestOffset = ((t1 - t0) + (t2 - t3)) / 2;
+			}
+		}
+		return bestOffset;
+	}
+
+	private long latency() {
+		return random.nextLong(10, 151);
+	}
+
+	private record SkewedClock(long skewMs, double driftRate) {
+
+		long read(long serverTime) {
+			return serverTime + skewMs + Math.round((serverTime % 86_400_000L) * driftRate);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.dev.jookbox.service.playback;
+
+import com.dev.jookbox.config.PlaybackProperties;
+import com.dev.jookbox.service.events.RoomEventLog;
+import com.dev.jookbox.service.events.RoomEventType;
+import com.dev.jookbox.web.dto.PlaybackStateResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PlaybackBroadcasterTests {
+
+	private static final long WINDOW_MILLIS = 200;
+
+	private final RoomEventLog eventLog = mock(RoomEventLog.class);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final PlaybackBroadcaster broadcaster = new PlaybackBroadcaster(eventLog,
+			new PlaybackProperties(100, Duration.ofMinutes(1), Duration.ofMillis(100), 512,
+					Duration.ofMillis(WINDOW_MILLIS)),
+			meterRegistry);
+
+	private final UUID item = UUID.randomUUID();
+
+	@AfterEach
+	void shutdown() {
+		broadcaster.shutdown();
+	}
+
+	@Test
+	void seeksRightAfterAPauseAreCoalesced() {
+		broadcaster.publish("ROOM1", frame(10_000, false), true);
+		broadcaster.publish("ROOM1", frame(20_000, false), false);
+		broadcaster.publish("ROOM1", frame(30_000, false), false);
+
+		ArgumentCaptor<Object> frames = ArgumentCaptor.forClass(Object.class);
+		verify(eventLog, timeout(2_000).times(2)).publish(eq("ROOM1"), eq(RoomEventType.PLAYBACK), frames.capture());
+		assertThat(frames.getAllValues()).extracting(frame -> ((PlaybackStateResponse) frame).positionMs())
+				.containsExactly(10_000, 30_000);
+		assertThat(meterRegistry.get("jookbox.playback.frames").tag("outcome", "coalesced").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void aSeekAfterThePausedWindowClosedGoesOutAtOnce() throws InterruptedException {
+		broadcaster.publish("ROOM2", frame(10_000, false), true);
+		TimeUnit.MILLISECONDS.sleep(3 * WINDOW_MILLIS);
+
+		broadcaster.publish("ROOM2", frame(20_000, false), false);
+
+		verify(eventLog, times(2)).publish(eq("ROOM2"), eq(RoomEventType.PLAYBACK), any());
+	}
+
+	private PlaybackStateResponse frame(int positionMs, boolean playing) {
+		Instant now = Instant.now();
+		return new PlaybackStateResponse(item, positionMs, playing, now, positionMs, positionMs, now);
+	}
+
+}
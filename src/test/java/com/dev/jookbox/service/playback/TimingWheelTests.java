@@ -0,0 +1,63 @@
+package com.dev.jookbox.service.playback;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTests {
+
+	private final TimingWheel wheel = new TimingWheel(10, 8, Runnable::run, "timing-wheel-test");
+
+	@AfterEach
+	void closeWheel() {
+		wheel.close();
+	}
+
+	@Test
+	void firesNoEarlierThanDeadlineAcrossRevolutions() throws InterruptedException {
+		CountDownLatch fired = new CountDownLatch(1);
+		AtomicLong firedAt = new AtomicLong();
+		// 8 buckets of 10 ms: 250 ms is three full revolutions out
+		long deadline = System.currentTimeMillis() + 250;
+		wheel.schedule(deadline, () -> {
+			firedAt.set(System.currentTimeMillis());
+			fired.countDown();
+		});
+
+		assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(firedAt.get()).isGreaterThanOrEqualTo(deadline);
+	}
+
+	@Test
+	void rescheduleKeepsTheTimerAndMovesItsDeadline() throws InterruptedException {
+		CountDownLatch fired = new CountDownLatch(1);
+		AtomicLong firedAt = new AtomicLong();
+		TimingWheel.Timeout timeout = wheel.schedule(System.currentTimeMillis() + 30, () -> {
+			firedAt.set(System.currentTimeMillis());
+			fired.countDown();
+		});
+		long moved = System.currentTimeMillis() + 200;
+
+		assertThat(timeout.reschedule(moved)).isTrue();
+		assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(firedAt.get()).isGreaterThanOrEqualTo(moved);
+		assertThat(timeout.reschedule(moved + 100)).isFalse();
+	}
+
+	@Test
+	void cancelledTimerNeverFires() throws InterruptedException {
+		AtomicInteger runs = new AtomicInteger();
+		TimingWheel.Timeout timeout = wheel.schedule(System.currentTimeMillis() + 30, runs::incrementAndGet);
+
+		assertThat(timeout.cancel()).isTrue();
+		TimeUnit.MILLISECONDS.sleep(150);
+		assertThat(runs.get()).isZero();
+		assertThat(timeout.cancel()).isFalse();
+	}
+}
@@ -0,0 +1,107 @@
+package com.dev.jookbox.service.queue;
+
+import com.dev.jookbox.config.QueueProperties;
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.repository.QueueItemRepository;
+import com.dev.jookbox.repository.RoomRepository;
+import com.dev.jookbox.repository.UserRepository;
+import com.dev.jookbox.service.command.RoomRouter;
+import com.dev.jookbox.web.RoomBusyException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueFlusherTests {
+
+	private final UUID roomId = UUID.randomUUID();
+
+	private final RoomQueue queue = new RoomQueue(roomId, 0, List.of());
+
+	private final RoomQueueStore queueStore = mock(RoomQueueStore.class);
+
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	@Test
+	void anUnreachableDatabaseNeverDropsAcknowledgedChanges() {
+		databaseFailsWith(new CannotCreateTransactionException("Connection refused"));
+		QueueFlusher flusher = flusher(Duration.ofMinutes(1));
+		queue.append(entry("a"));
+
+		for (int i = 0; i < 20; i++) {
+			flusher.flush(queue);
+		}
+
+		verify(queueStore, never()).discard(any());
+		assertThat(queue.drainChanges().inserts()).extracting(QueueEntry::title).containsExactly("a");
+	}
+
+	@Test
+	void aRoomThatFailedToFlushBacksOff() {
+		databaseFailsWith(new CannotCreateTransactionException("Connection refused"));
+		when(queueStore.loaded()).thenReturn(List.of(queue));
+		QueueFlusher flusher = flusher(Duration.ofMinutes(1));
+		queue.append(entry("a"));
+
+		flusher.flushAll();
+		flusher.flushAll();
+
+		verify(transactionManager, times(1)).getTransaction(any());
+	}
+
+	@Test
+	void aBacklogOlderThanTheLimitRefusesNewChangesUntilAFlushSucceeds() {
+		databaseFailsWith(new CannotCreateTransactionException("Connection refused"));
+		QueueFlusher flusher = flusher(Duration.ZERO);
+		queue.append(entry("a"));
+
+		flusher.flush(queue);
+
+		assertThatThrownBy(() -> queue.append(entry("b"))).isInstanceOf(RoomBusyException.class);
+		queue.flushed(queue.drainChanges());
+		assertThat(queue.append(entry("b")).revision()).isEqualTo(2);
+	}
+
+	@Test
+	void aFailureThatWaitingCannotFixIsDroppedAfterTheLastAttempt() {
+		databaseFailsWith(new IllegalStateException("updated queue items are missing"));
+		QueueFlusher flusher = flusher(Duration.ofMinutes(1));
+		queue.append(entry("a"));
+
+		for (int i = 0; i < 5; i++) {
+			flusher.flush(queue);
+		}
+
+		verify(queueStore).discard(queue);
+	}
+
+	private void databaseFailsWith(RuntimeException failure) {
+		when(transactionManager.getTransaction(any())).thenThrow(failure);
+	}
+
+	private QueueFlusher flusher(Duration maxBacklogAge) {
+		return new QueueFlusher(queueStore, mock(QueueItemRepository.class), mock(RoomRepository.class),
+				mock(UserRepository.class), mock(EntityManager.class), transactionManager,
+				new QueueProperties(Duration.ofMinutes(10), 5, Duration.ofSeconds(30), maxBacklogAge),
+				mock(RoomRouter.class));
+	}
+
+	private QueueEntry entry(String title) {
+		return new QueueEntry(UUID.randomUUID(), roomId, "video-" + title, title, 180, null,
+				UUID.randomUUID(), "tester", QueueItemStatus.QUEUED, 0, OffsetDateTime.now());
+	}
+}
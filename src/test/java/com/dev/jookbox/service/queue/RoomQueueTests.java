@@ -0,0 +1,278 @@
+package com.dev.jookbox.service.queue;
+
+import com.dev.jookbox.domain.QueueItemStatus;
+import com.dev.jookbox.domain.QueueOperationType;
+import com.dev.jookbox.web.ConflictException;
+import com.dev.jookbox.web.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomQueueTests {
+
+	private final UUID roomId = UUID.randomUUID();
+
+	private final RoomQueue queue = new RoomQueue(roomId, 0, List.of());
+
+	@Test
+	void appendSpacesRanksAndBumpsRevision() {
+		QueueDelta first = queue.append(entry("a"));
+		QueueDelta second = queue.appendAll(List.of(entry("b"), entry("c")));
+
+		assertThat(first.revision()).isEqualTo(1);
+		assertThat(second.revision()).isEqualTo(2);
+		assertThat(second.operations()).extracting(QueueDelta.Operation::index).containsExactly(1, 2);
+		assertThat(ranks()).containsExactly(RoomQueue.RANK_GAP, 2 * RoomQueue.RANK_GAP, 3 * RoomQueue.RANK_GAP);
+	}
+
+	@Test
+	void moveTakesTheMidpointAndOnlyReranksTheMovedItem() {
+		queue.appendAll(List.of(entry("a"), entry("b"), entry("c")));
+		UUID c = idAt(2);
+		queue.drainChanges();
+
+		QueueDelta delta = queue.move(c, 1);
+
+		assertThat(titles()).containsExactly("a", "c", "b");
+		assertThat(ranks()).containsExactly(RoomQueue.RANK_GAP, RoomQueue.RANK_GAP * 3 / 2, 2 * RoomQueue.RANK_GAP);
+		assertThat(delta.operations()).singleElement().satisfies(operation -> {
+			assertThat(operation.type()).isEqualTo(QueueOperationType.MOVE);
+			assertThat(operation.index()).isEqualTo(1);
+		});
+		QueueChanges changes = queue.drainChanges();
+		assertThat(changes.inserts()).isEmpty();
+		assertThat(changes.updates()).extracting(QueueEntry::id).containsExactly(c);
+	}
+
+	@Test
+	void moveBeyondTheEndAppends() {
+		queue.appendAll(List.of(entry("a"), entry("b")));
+
+		queue.move(idAt(0), 10);
+
+		assertThat(titles()).containsExactly("b", "a");
+		assertThat(ranks().get(1)).isGreaterThan(ranks().get(0));
+	}
+
+	@Test
+	void moveOfUnknownItemFails() {
+		queue.append(entry("a"));
+
+		assertThatThrownBy(() -> queue.move(UUID.randomUUID(), 0)).isInstanceOf(ResourceNotFoundException.class);
+		assertThat(queue.revision()).isEqualTo(1);
+	}
+
+	@Test
+	void repeatedMovesIntoOneSlotWearTheGapDownUntilMoveRebalances() {
+		queue.appendAll(List.of(entry("a"), entry("b"), entry("c")));
+
+		// each move halves the gap after "a": 1024 / 2^7 = 8 is still fine, 1024 / 2^8 = 4 is not
+		for (int i = 0; i < 7; i++) {
+			queue.move(idAt(2), 1);
+		}
+		assertThat(queue.needsRebalance()).isFalse();
+		queue.move(idAt(2), 1);
+		assertThat(queue.needsRebalance()).isTrue();
+
+		// moves 9 and 10 still find a midpoint, move 11 does not and rebalances inline
+		for (int i = 0; i < 3; i++) {
+			queue.move(idAt(2), 1);
+			assertThat(ranks()).isSorted().doesNotHaveDuplicates();
+		}
+		assertThat(ranks()).containsExactly(RoomQueue.RANK_GAP, 2 * RoomQueue.RANK_GAP, 3 * RoomQueue.RANK_GAP);
+		assertThat(queue.needsRebalance()).isFalse();
+	}
+
+	@Test
+	void rebalanceKeepsOrderAndRevisionAndOnlyQueuesChangedRanks() {
+		queue.appendAll(List.of(entry("a"), entry("b"), entry("c")));
+		queue.move(idAt(2), 1);
+		queue.drainChanges();
+		List<String> order = titles();
+		long revision = queue.revision();
+
+		queue.rebalance();
+
+		assertThat(titles()).isEqualTo(order);
+		assertThat(queue.revision()).isEqualTo(revision);
+		assertThat(ranks()).containsExactly(RoomQueue.RANK_GAP, 2 * RoomQueue.RANK_GAP, 3 * RoomQueue.RANK_GAP);
+		// "a" keeps its rank, "c" and "b" move
+		assertThat(queue.drainChanges().updates()).extracting(QueueEntry::title).containsExactlyInAnyOrder("c", "b");
+	}
+
+	@Test
+	void retireRemovesTheItemAndQueuesItsNewStatus() {
+		queue.appendAll(List.of(entry("a"), entry("b")));
+		UUID a = idAt(0);
+		queue.drainChanges();
+
+		QueueDelta delta = queue.retire(a, QueueItemStatus.PLAYED);
+
+		assertThat(titles()).containsExactly("b");
+		assertThat(delta.operations()).singleElement().satisfies(operation -> {
+			assertThat(operation.type()).isEqualTo(QueueOperationType.REMOVE);
+			assertThat(operation.index()).isZero();
+		});
+		assertThat(queue.drainChanges().updates()).singleElement().satisfies(entry -> {
+			assertThat(entry.id()).isEqualTo(a);
+			assertThat(entry.status()).isEqualTo(QueueItemStatus.PLAYED);
+		});
+	}
+
+	@Test
+	void markPlayingKeepsTheItemInPlace() {
+		queue.appendAll(List.of(entry("a"), entry("b")));
+
+		queue.markPlaying(idAt(1));
+
+		assertThat(titles()).containsExactly("a", "b");
+		assertThat(queue.snapshot().items().get(1).status()).isEqualTo(QueueItemStatus.PLAYING);
+	}
+
+	@Test
+	void markPlayingPutsThePreviouslyPlayingItemBack() {
+		queue.appendAll(List.of(entry("a"), entry("b"), entry("c")));
+		queue.markPlaying(idAt(0));
+		queue.drainChanges();
+
+		QueueDelta delta = queue.markPlaying(idAt(2));
+
+		assertThat(queue.snapshot().items()).extracting(QueueEntry::status)
+				.containsExactly(QueueItemStatus.QUEUED, QueueItemStatus.QUEUED, QueueItemStatus.PLAYING);
+		assertThat(delta.operations()).extracting(QueueDelta.Operation::index).containsExactly(0, 2);
+		assertThat(queue.drainChanges().updates()).extracting(QueueEntry::title).containsExactlyInAnyOrder("a", "c");
+	}
+
+	@Test
+	void staleRevisionPassesWhenTheItemWasNotTouchedSince() {
+		queue.appendAll(List.of(entry("a"), entry("b")));
+		UUID a = idAt(0);
+		UUID b = idAt(1);
+		long seen = queue.revision();
+		queue.move(b, 0);
+		queue.append(entry("c"));
+
+		queue.verifyUnchangedSince(queue.revision(), b);
+		queue.verifyUnchangedSince(seen, a);
+		assertThatThrownBy(() -> queue.verifyUnchangedSince(seen, b))
+				.isInstanceOf(ConflictException.class)
+				.hasMessageContaining("changed at revision 2");
+	}
+
+	@Test
+	void revisionAheadOfTheQueueOrOlderThanTheHistoryConflicts() {
+		queue.append(entry("a"));
+		UUID a = idAt(0);
+
+		assertThatThrownBy(() -> queue.verifyUnchangedSince(queue.revision() + 1, a))
+				.isInstanceOf(ConflictException.class)
+				.hasMessageContaining("Unknown queue revision");
+
+		for (int i = 0; i < 70; i++) {
+			queue.append(entry("filler-" + i));
+		}
+		assertThatThrownBy(() -> queue.verifyUnchangedSince(1, a))
+				.isInstanceOf(ConflictException.class)
+				.hasMessageContaining("changed too much");
+	}
+
+	@Test
+	void drainSplitsInsertsFromUpdatesAndEmptiesThePendingSet() {
+		queue.append(entry("a"));
+		QueueChanges first = queue.drainChanges();
+		queue.append(entry("b"));
+		queue.move(idAt(1), 0);
+
+		QueueChanges second = queue.drainChanges();
+
+		assertThat(first.inserts()).extracting(QueueEntry::title).containsExactly("a");
+		assertThat(first.updates()).isEmpty();
+		// "b" was inserted and moved before the drain, so it goes out once, as an insert with its latest rank
+		assertThat(second.inserts()).singleElement().satisfies(entry -> {
+			assertThat(entry.title()).isEqualTo("b");
+			assertThat(entry.position()).isEqualTo(ranks().get(0));
+		});
+		assertThat(second.updates()).isEmpty();
+		assertThat(second.revision()).isEqualTo(queue.revision());
+		assertThat(queue.drainChanges().isEmpty()).isTrue();
+	}
+
+	@Test
+	void restoreRequeuesChangesWithoutOverwritingNewerOnes() {
+		queue.appendAll(List.of(entry("a"), entry("b")));
+		UUID a = idAt(0);
+		UUID b = idAt(1);
+		queue.drainChanges();
+		queue.move(b, 0);
+		QueueChanges failed = queue.drainChanges();
+		queue.append(entry("c"));
+		QueueChanges unsent = queue.drainChanges();
+		queue.retire(b, QueueItemStatus.REMOVED);
+
+		queue.restore(failed);
+		queue.restore(unsent);
+		QueueChanges retried = queue.drainChanges();
+
+		assertThat(retried.inserts()).extracting(QueueEntry::title).containsExactly("c");
+		assertThat(retried.updates()).singleElement().satisfies(entry -> {
+			assertThat(entry.id()).isEqualTo(b);
+			assertThat(entry.status()).isEqualTo(QueueItemStatus.REMOVED);
+		});
+		assertThat(retried.updates()).extracting(QueueEntry::id).doesNotContain(a);
+	}
+
+	@Test
+	void drainedChangesBuildOnTheLastFlushedRevision() {
+		queue.append(entry("a"));
+		QueueChanges first = queue.drainChanges();
+		queue.append(entry("b"));
+		QueueChanges failed = queue.drainChanges();
+
+		assertThat(first.baseRevision()).isZero();
+		assertThat(failed.baseRevision()).isZero();
+
+		queue.flushed(first);
+		queue.restore(failed);
+		queue.append(entry("c"));
+		QueueChanges retried = queue.drainChanges();
+
+		assertThat(retried.baseRevision()).isEqualTo(first.revision());
+		assertThat(retried.revision()).isEqualTo(3);
+		assertThat(retried.inserts()).extracting(QueueEntry::title).containsExactly("b", "c");
+	}
+
+	@Test
+	void idleOnlyOnceUnusedAndFullyDrained() {
+		queue.append(entry("a"));
+		long later = System.currentTimeMillis() + 1;
+
+		assertThat(queue.isIdleSince(later)).isFalse();
+		queue.drainChanges();
+		assertThat(queue.isIdleSince(later)).isTrue();
+		queue.touch();
+		assertThat(queue.isIdleSince(later - 1)).isFalse();
+	}
+
+	private QueueEntry entry(String title) {
+		return new QueueEntry(UUID.randomUUID(), roomId, "video-" + title, title, 180, null,
+				UUID.randomUUID(), "tester", QueueItemStatus.QUEUED, 0, OffsetDateTime.now());
+	}
+
+	private UUID idAt(int index) {
+		return queue.snapshot().items().get(index).id();
+	}
+
+	private List<String> titles() {
+		return queue.snapshot().items().stream().map(QueueEntry::title).toList();
+	}
+
+	private List<Integer> ranks() {
+		return queue.snapshot().items().stream().map(QueueEntry::position).toList();
+	}
+
+}
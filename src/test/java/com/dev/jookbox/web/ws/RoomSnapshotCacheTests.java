@@ -0,0 +1,153 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.config.WebSocketProperties;
+import com.dev.jookbox.domain.Role;
+import com.dev.jookbox.security.AuthenticatedMember;
+import com.dev.jookbox.security.MemberAuthentication;
+import com.dev.jookbox.service.PlaybackService;
+import com.dev.jookbox.service.QueueService;
+import com.dev.jookbox.web.ForbiddenOperationException;
+import com.dev.jookbox.web.dto.PlaybackStateResponse;
+import com.dev.jookbox.web.dto.QueueResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomSnapshotCacheTests {
+
+	private static final int SUBSCRIBERS = 16;
+
+	private final QueueService queueService = mock(QueueService.class);
+
+	private final PlaybackService playbackService = mock(PlaybackService.class);
+
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.addModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+
+	private final RoomSnapshotCache cache = new RoomSnapshotCache(queueService, playbackService, objectMapper,
+			new WebSocketProperties(Duration.ofSeconds(10), DataSize.ofKilobytes(512), DataSize.ofKilobytes(64),
+					4, 16, 10_000, 8, 100),
+			new SimpleMeterRegistry());
+
+	private final RoomSnapshotController controller = new RoomSnapshotController(cache);
+
+	@Test
+	void oneRenderServesEverySubscriberOfARevision() throws Exception {
+		CountDownLatch rendering = new CountDownLatch(1);
+		when(queueService.currentRevision("ROOM1")).thenReturn(3L);
+		when(queueService.getQueue("ROOM1")).thenAnswer(invocation -> {
+			rendering.await(5, TimeUnit.SECONDS);
+			return new QueueResponse(3, List.of());
+		});
+
+		ExecutorService subscribers = Executors.newFixedThreadPool(SUBSCRIBERS);
+		try {
+			List<Future<String>> replies = new ArrayList<>();
+			for (int i = 0; i < SUBSCRIBERS; i++) {
+				replies.add(subscribers.submit(() -> cache.queue("ROOM1")));
+			}
+			verify(queueService, timeout(2_000)).getQueue("ROOM1");
+			TimeUnit.MILLISECONDS.sleep(100);
+			rendering.countDown();
+
+			for (Future<String> reply : replies) {
+				assertThat(objectMapper.readTree(reply.get(5, TimeUnit.SECONDS)).get("revision").asLong())
+						.isEqualTo(3);
+			}
+		} finally {
+			subscribers.shutdownNow();
+		}
+		verify(queueService, times(1)).getQueue("ROOM1");
+	}
+
+	@Test
+	void aNewRevisionIsRenderedAgain() throws Exception {
+		when(queueService.currentRevision("ROOM1")).thenReturn(3L, 4L);
+		when(queueService.getQueue("ROOM1")).thenReturn(new QueueResponse(3, List.of()),
+				new QueueResponse(4, List.of()));
+
+		assertThat(objectMapper.readTree(cache.queue("ROOM1")).get("revision").asLong()).isEqualTo(3);
+		assertThat(objectMapper.readTree(cache.queue("ROOM1")).get("revision").asLong()).isEqualTo(4);
+	}
+
+	@Test
+	void aFailedRenderIsNotCached() {
+		when(queueService.currentRevision("ROOM1")).thenReturn(3L);
+		when(queueService.getQueue("ROOM1"))
+				.thenThrow(new IllegalStateException("owner unavailable"))
+				.thenReturn(new QueueResponse(3, List.of()));
+
+		assertThatThrownBy(() -> cache.queue("ROOM1")).isInstanceOf(IllegalStateException.class);
+		assertThat(cache.queue("ROOM1")).contains("\"revision\":3");
+	}
+
+	@Test
+	void subscribingGetsTheQueueAndTheCurrentPlaybackPosition() throws Exception {
+		UUID item = UUID.randomUUID();
+		Instant updated = Instant.parse("2026-01-01T12:00:00Z");
+		when(queueService.currentRevision("ROOM1")).thenReturn(7L);
+		when(queueService.getQueue("ROOM1")).thenReturn(new QueueResponse(7, List.of()));
+		when(playbackService.getState("ROOM1")).thenReturn(
+				Optional.of(new PlaybackStateResponse(item, 10_000, true, updated, 5, 12_000, updated.plusSeconds(2))),
+				Optional.of(new PlaybackStateResponse(item, 10_000, true, updated, 5, 15_000, updated.plusSeconds(5))));
+
+		String queue = controller.queue("ROOM1", member("ROOM1")).rawValue().toString();
+		assertThat(objectMapper.readTree(queue).get("revision").asLong()).isEqualTo(7);
+
+		JsonNode first = controller.playback("ROOM1", member("ROOM1"));
+		JsonNode second = controller.playback("ROOM1", member("ROOM1"));
+		assertThat(first.get("nowPlayingQueueItemId").asText()).isEqualTo(item.toString());
+		assertThat(first.get("version").asLong()).isEqualTo(5);
+		assertThat(first.get("effectivePositionMs").asLong()).isEqualTo(12_000);
+		assertThat(second.get("effectivePositionMs").asLong()).isEqualTo(15_000);
+		assertThat(second.get("serverTime").asText()).isEqualTo("2026-01-01T12:00:05Z");
+		assertThat(objectMapper.readValue(objectMapper.writeValueAsString(second), PlaybackStateResponse.class))
+				.isEqualTo(new PlaybackStateResponse(item, 10_000, true, updated, 5, 15_000, updated.plusSeconds(5)));
+	}
+
+	@Test
+	void aRoomWithoutPlaybackAnswersNull() {
+		when(playbackService.getState("ROOM1")).thenReturn(Optional.empty());
+
+		assertThat(controller.playback("ROOM1", member("ROOM1")).isNull()).isTrue();
+	}
+
+	@Test
+	void onlyMembersOfTheRoomGetItsSnapshot() {
+		assertThatThrownBy(() -> controller.queue("ROOM1", member("ROOM2")))
+				.isInstanceOf(ForbiddenOperationException.class);
+	}
+
+	private static MemberAuthentication member(String roomCode) {
+		return new MemberAuthentication(new AuthenticatedMember(UUID.randomUUID(), UUID.randomUUID(),
+				UUID.randomUUID(), roomCode, Role.GUEST, 0, 1), "token");
+	}
+
+}
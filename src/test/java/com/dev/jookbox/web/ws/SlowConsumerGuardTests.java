@@ -0,0 +1,149 @@
+package com.dev.jookbox.web.ws;
+
+import com.dev.jookbox.config.WebSocketProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlowConsumerGuardTests {
+
+	private static final int SLOW_SESSION_FRAMES = 2;
+
+	private static final String PLAYBACK = "/topic/rooms/ROOM1/playback";
+
+	private static final String QUEUE = "/topic/rooms/ROOM1/queue";
+
+	private final MessageChannel outboundChannel = mock(MessageChannel.class);
+
+	private final List<Runnable> outboundTasks = new ArrayList<>();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final SlowConsumerGuard guard = new SlowConsumerGuard(outboundChannel, outboundTasks::add,
+			new WebSocketProperties(Duration.ofSeconds(10), DataSize.ofKilobytes(512), DataSize.ofKilobytes(64),
+					4, 16, 10_000, SLOW_SESSION_FRAMES, 100),
+			meterRegistry);
+
+	private final WebSocketHandler handler = mock(WebSocketHandler.class);
+
+	private final WebSocketSession session = mock(WebSocketSession.class);
+
+	private WebSocketSession counting;
+
+	@BeforeEach
+	void connect() throws Exception {
+		when(session.getId()).thenReturn("s1");
+		WebSocketHandler decorated = guard.decorate(handler);
+		decorated.afterConnectionEstablished(session);
+		ArgumentCaptor<WebSocketSession> wrapped = ArgumentCaptor.forClass(WebSocketSession.class);
+		verify(handler).afterConnectionEstablished(wrapped.capture());
+		counting = wrapped.getValue();
+	}
+
+	@Test
+	void playbackFramesPassUntilTheSessionIsBehind() {
+		assertThat(guard.preSend(frame(PLAYBACK, "1"), outboundChannel)).isNotNull();
+		assertThat(guard.preSend(frame(QUEUE, "q1"), outboundChannel)).isNotNull();
+
+		assertThat(guard.preSend(frame(PLAYBACK, "2"), outboundChannel)).isNull();
+		assertThat(guard.preSend(frame(QUEUE, "q2"), outboundChannel)).isNotNull();
+		assertThat(gauge("jookbox.ws.outbound.pending")).isEqualTo(3);
+		assertThat(gauge("jookbox.ws.sessions.slow")).isEqualTo(1);
+	}
+
+	@Test
+	void aSlowSessionOnlyGetsTheLatestPlaybackFrameOnceDrained() throws IOException {
+		guard.preSend(frame(QUEUE, "q1"), outboundChannel);
+		guard.preSend(frame(QUEUE, "q2"), outboundChannel);
+		guard.preSend(frame(PLAYBACK, "1"), outboundChannel);
+		guard.preSend(frame(PLAYBACK, "2"), outboundChannel);
+		Message<?> latest = frame(PLAYBACK, "3");
+		guard.preSend(latest, outboundChannel);
+		assertThat(meterRegistry.get("jookbox.ws.playback.superseded").counter().count()).isEqualTo(2);
+
+		counting.sendMessage(new TextMessage("q1"));
+		assertThat(outboundTasks).isEmpty();
+		counting.sendMessage(new TextMessage("q2"));
+
+		// handed to the outbound executor rather than sent on the transport thread
+		verify(outboundChannel, never()).send(any());
+		assertThat(outboundTasks).hasSize(1);
+		outboundTasks.getFirst().run();
+		verify(outboundChannel).send(latest);
+		assertThat(gauge("jookbox.ws.sessions.slow")).isZero();
+	}
+
+	@Test
+	void aFailedSendResetsTheSessionsCount() throws IOException {
+		guard.preSend(frame(QUEUE, "q1"), outboundChannel);
+		guard.preSend(frame(QUEUE, "q2"), outboundChannel);
+		guard.preSend(frame(PLAYBACK, "1"), outboundChannel);
+		doThrow(new IOException("Broken pipe")).when(session).sendMessage(any());
+
+		assertThatThrownBy(() -> counting.sendMessage(new TextMessage("q1"))).isInstanceOf(IOException.class);
+
+		assertThat(gauge("jookbox.ws.outbound.pending")).isZero();
+		assertThat(gauge("jookbox.ws.sessions.slow")).isZero();
+		assertThat(guard.preSend(frame(PLAYBACK, "2"), outboundChannel)).isNotNull();
+	}
+
+	@Test
+	void aFrameThatNeverReachedTheSocketIsNotCountedForever() {
+		Message<?> first = frame(QUEUE, "q1");
+		guard.preSend(first, outboundChannel);
+		guard.preSend(frame(QUEUE, "q2"), outboundChannel);
+
+		guard.afterMessageHandled(first, outboundChannel, mock(MessageHandler.class),
+				new IllegalStateException("session closed"));
+
+		assertThat(guard.preSend(frame(PLAYBACK, "1"), outboundChannel)).isNotNull();
+	}
+
+	@Test
+	void sessionsClosedForTheSendLimitsAreCounted() throws Exception {
+		WebSocketHandler decorated = guard.decorate(handler);
+		decorated.afterConnectionClosed(session, CloseStatus.NORMAL);
+		decorated.afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+
+		assertThat(meterRegistry.get("jookbox.ws.sessions.terminated").counter().count()).isEqualTo(1);
+	}
+
+	private double gauge(String name) {
+		return meterRegistry.get(name).gauge().value();
+	}
+
+	private static Message<byte[]> frame(String destination, String body) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId("s1");
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+	}
+
+}